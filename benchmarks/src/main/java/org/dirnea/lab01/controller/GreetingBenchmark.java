@@ -0,0 +1,54 @@
+package org.dirnea.lab01.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dirnea.lab01.model.Greeting;
+import org.dirnea.lab01.util.GreetingWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload of {@code /greeting}: {@code String.format} + Jackson against {@link GreetingWriter}.
+ * {@code main} adds the gc profiler, which shows the bytes allocated per call next to the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class GreetingBenchmark {
+
+    @Param({"World", "Manuel \"Vega\" Peña"})
+    private String name;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GreetingWriter writer = new GreetingWriter();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    private long id;
+
+    @Benchmark
+    public int formatAndJackson() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, new Greeting(++id, String.format("Hello, %s!", name)));
+        return out.size();
+    }
+
+    @Benchmark
+    public int greetingWriter() throws IOException {
+        out.reset();
+        return writer.write(++id, name, out);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GreetingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
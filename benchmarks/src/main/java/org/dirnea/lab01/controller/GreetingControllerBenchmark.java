@@ -0,0 +1,42 @@
+package org.dirnea.lab01.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GreetingController#greeting} end to end, minus the servlet container: both
+ * payload paths ({@code greeting.fast-path}) writing into a reused mock response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class GreetingControllerBenchmark {
+
+    @Param({"true", "false"})
+    public boolean fastPath;
+
+    private GreetingController controller;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        controller = new GreetingController(new ObjectMapper(), 256);
+        ReflectionTestUtils.setField(controller, "fastPath", fastPath);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int greeting() throws IOException {
+        response.reset();
+        controller.greeting("World", response);
+        return response.getContentLength();
+    }
+}
@@ -0,0 +1,58 @@
+package org.dirnea.lab01.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention curve of the greeting ids: one shared {@link AtomicLong} against
+ * {@link IdBlockSequence}. {@code main} repeats the run with 1, 2, 4, ... threads up to
+ * the number of cores; with a single counter the total throughput stops growing, with
+ * blocks it should grow with the threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdSequenceBenchmark {
+
+    @Param({"256"})
+    private int blockSize;
+
+    private final AtomicLong counter = new AtomicLong();
+    private IdBlockSequence sequence;
+
+    @Setup
+    public void setUp() {
+        sequence = new IdBlockSequence(blockSize);
+    }
+
+    @Benchmark
+    public long atomicLong() {
+        return counter.incrementAndGet();
+    }
+
+    @Benchmark
+    public long idBlockSequence() {
+        return sequence.next();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            new Runner(new OptionsBuilder()
+                    .include(IdSequenceBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.dirnea.lab04;
+
+import org.dirnea.lab04.search.EmployeeIndexLoader;
+import org.dirnea.lab04.service.OrderIdAllocator;
+import org.dirnea.lab04.service.OrderStatusCounts;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Boots lab04 without a web server and fills its in-memory H2 with {@code rows} employees
+ * and {@code rows} orders. The rows are generated by the database itself, with ids
+ * {@code 1..rows}, so every fork starts from the same data.
+ */
+public final class Lab04Context {
+
+    private Lab04Context() {
+    }
+
+    public static ConfigurableApplicationContext start(int rows) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Lab03Application.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN",
+                        // sin los datos de ejemplo, solo las filas generadas abajo
+                        "seed.employees=", "seed.orders=")
+                .run();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("INSERT INTO employee (id, name, role, version) " +
+                "SELECT x, CONCAT('Employee ', x), CASE WHEN MOD(x, 10) = 0 THEN 'Instructor' ELSE 'Student' END, 0 " +
+                "FROM SYSTEM_RANGE(1, " + rows + ")");
+        // status es el ordinal de Status: 0 = IN_PROGRESS
+        jdbc.update("INSERT INTO customer_order (id, description, status, version) " +
+                "SELECT x, CONCAT('Order ', x), 0, 0 FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbc.execute("ALTER SEQUENCE employee_seq RESTART WITH " + (rows + 1));
+        context.getBean(OrderIdAllocator.class).advancePast(rows);
+        // las filas no pasaron por JPA, ni el indice de busqueda ni los contadores las vieron
+        context.getBean(EmployeeIndexLoader.class).rebuild();
+        context.getBean(OrderStatusCounts.class).recount();
+        return context;
+    }
+
+    /**
+     * Binds a request to the current thread, the controllers build their links from it.
+     */
+    public static MockHttpServletRequest bindRequest(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setServerName("localhost");
+        request.setServerPort(8088);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+
+    public static void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+}
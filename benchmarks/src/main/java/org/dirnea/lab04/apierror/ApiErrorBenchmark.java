@@ -0,0 +1,63 @@
+package org.dirnea.lab04.apierror;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dirnea.lab04.exception.EntityNotFoundException;
+import org.dirnea.lab04.model.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+/**
+ * Body of every error response of lab04: building an {@link ApiError} and writing it with
+ * an {@link ObjectMapper} configured the way Spring Boot configures its own, or with the
+ * {@link ApiErrorWriter} of {@code api-error.prerendered}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class ApiErrorBenchmark {
+
+    private ObjectMapper objectMapper;
+    private EntityNotFoundException notFound;
+    private ApiError apiError;
+    private ApiErrorWriter writer;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        notFound = new EntityNotFoundException(Employee.class, "id", "42");
+        apiError = new ApiError(NOT_FOUND);
+        apiError.setMessage(notFound.getMessage());
+        writer = new ApiErrorWriter();
+    }
+
+    @Benchmark
+    public byte[] serialise() throws Exception {
+        return objectMapper.writeValueAsBytes(apiError);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerialise() throws Exception {
+        ApiError error = new ApiError(NOT_FOUND);
+        error.setMessage(notFound.getMessage());
+        return objectMapper.writeValueAsBytes(error);
+    }
+
+    @Benchmark
+    public byte[] prerendered() {
+        return writer.write(apiError);
+    }
+
+    @Benchmark
+    public byte[] buildAndPrerender() {
+        ApiError error = new ApiError(NOT_FOUND);
+        error.setMessage(notFound.getMessage());
+        return writer.write(error);
+    }
+}
@@ -0,0 +1,87 @@
+package org.dirnea.lab04.controller;
+
+import org.dirnea.lab04.Lab04Context;
+import org.dirnea.lab04.model.EmployeeHitModel;
+import org.dirnea.lab04.model.EmployeeModel;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EmployeeController#one}, the first page and the filtered pages of
+ * {@link EmployeeController#page} and {@link EmployeeController#search} called on the bean, through the transactional proxy, against
+ * a table of {@code rows} employees (one in ten is an Instructor). The ids read by {@code one}
+ * come from a fixed seed so every run reads the same sequence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EmployeeControllerBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeController controller;
+    private MockHttpServletRequest request;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = Lab04Context.start(rows);
+        controller = context.getBean(EmployeeController.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void bindRequest() {
+        request = Lab04Context.bindRequest("/employees");
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Iteration)
+    public void unbindRequest() {
+        Lab04Context.unbindRequest();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public CollectionModel<EmployeeModel> firstPage() {
+        // GET /employees sin parametros, sin If-None-Match: siempre la respuesta completa
+        return controller.page(null, null, 20, null, null, new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    @Benchmark
+    public ResponseEntity<EmployeeModel> one() {
+        long id = 1 + random.nextInt(rows);
+        return controller.one(id, new ServletWebRequest(request));
+    }
+
+    @Benchmark
+    public CollectionModel<EmployeeModel> byRole() {
+        return controller.page(null, null, 20, "Instructor", null, new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    @Benchmark
+    public CollectionModel<EmployeeModel> byNamePrefix() {
+        return controller.page(null, null, 20, null, "Employee 9", new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    @Benchmark
+    public CollectionModel<EmployeeHitModel> search() {
+        return controller.search("employe instructor " + (1 + random.nextInt(rows)), 10);
+    }
+}
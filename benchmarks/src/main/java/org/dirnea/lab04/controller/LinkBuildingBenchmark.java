@@ -0,0 +1,62 @@
+package org.dirnea.lab04.controller;
+
+import org.dirnea.lab04.util.LinkTemplates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Cost of one entity self link: {@code linkTo(methodOn(...))} against {@link LinkTemplates}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class LinkBuildingBenchmark {
+
+    private LinkTemplates templates;
+    private long id;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/employees");
+        request.setServerName("localhost");
+        request.setServerPort(8088);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        templates = new LinkTemplates();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Link linkToMethodOn() {
+        return linkTo(methodOn(EmployeeController.class).one(++id, null)).withSelfRel();
+    }
+
+    @Benchmark
+    public Link linkTemplates() {
+        return templates.employee(++id);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LinkBuildingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
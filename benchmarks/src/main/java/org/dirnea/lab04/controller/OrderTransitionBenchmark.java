@@ -0,0 +1,84 @@
+package org.dirnea.lab04.controller;
+
+import org.dirnea.lab04.Lab04Context;
+import org.dirnea.lab04.exception.InvalidStateTransitionException;
+import org.dirnea.lab04.model.OrderModel;
+import org.dirnea.lab04.model.Status;
+import org.dirnea.lab04.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PUT /orders/{id}/complete} on an order in progress, and the 409 path on an order
+ * that was already cancelled, with {@code rows} orders in the table.
+ * <p>
+ * A completed order cannot be completed again, so {@code complete} puts the order back
+ * in progress with the same conditional update: the score covers two single-row updates
+ * and the read of the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderTransitionBenchmark {
+
+    private static final long CANCELLED_ID = 1;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private OrderController controller;
+    private OrderRepository repository;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = Lab04Context.start(rows);
+        controller = context.getBean(OrderController.class);
+        repository = context.getBean(OrderRepository.class);
+        repository.transition(CANCELLED_ID, Status.IN_PROGRESS, Status.CANCELLED);
+    }
+
+    @Setup(Level.Iteration)
+    public void bindRequest() {
+        Lab04Context.bindRequest("/orders");
+        next = CANCELLED_ID;
+    }
+
+    @TearDown(Level.Iteration)
+    public void unbindRequest() {
+        Lab04Context.unbindRequest();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<OrderModel> complete() {
+        // recorre los ids 2..rows, el 1 es la orden cancelada
+        next = next % rows + 1;
+        if (next == CANCELLED_ID) {
+            next++;
+        }
+        ResponseEntity<OrderModel> response = controller.complete(next, null, null);
+        repository.transition(next, Status.COMPLETED, Status.IN_PROGRESS);
+        return response;
+    }
+
+    @Benchmark
+    public Object conflict() {
+        try {
+            return controller.complete(CANCELLED_ID, null, null);
+        } catch (InvalidStateTransitionException ex) {
+            return ex;
+        }
+    }
+}
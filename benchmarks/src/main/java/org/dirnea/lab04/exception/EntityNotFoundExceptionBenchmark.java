@@ -0,0 +1,83 @@
+package org.dirnea.lab04.exception;
+
+import org.dirnea.lab04.model.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a 404 before it reaches the handler: constructing {@link EntityNotFoundException}
+ * and throwing it up a few frames, next to {@link LegacyEntityNotFoundException} (stack trace
+ * and eager message). {@code *AndMessage} also pay for the message, as the handler does when
+ * it writes the body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class EntityNotFoundExceptionBenchmark {
+
+    private long id;
+
+    @Benchmark
+    public EntityNotFoundException construct() {
+        return new EntityNotFoundException(Employee.class, "id", Long.toString(++id));
+    }
+
+    @Benchmark
+    public String constructAndMessage() {
+        return new EntityNotFoundException(Employee.class, "id", Long.toString(++id)).getMessage();
+    }
+
+    @Benchmark
+    public EntityNotFoundException throwAndCatch() {
+        try {
+            find(++id, 8);
+            return null;
+        } catch (EntityNotFoundException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public String throwAndCatchAndMessage() {
+        try {
+            find(++id, 8);
+            return null;
+        } catch (EntityNotFoundException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    @Benchmark
+    public LegacyEntityNotFoundException legacyConstruct() {
+        return new LegacyEntityNotFoundException(Employee.class, "id", Long.toString(++id));
+    }
+
+    @Benchmark
+    public String legacyThrowAndCatchAndMessage() {
+        try {
+            findLegacy(++id, 8);
+            return null;
+        } catch (LegacyEntityNotFoundException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    // unas cuantas llamadas de profundidad, como entre el repositorio y el controlador
+    private static Object find(long id, int depth) {
+        if (depth == 0) {
+            throw new EntityNotFoundException(Employee.class, "id", Long.toString(id));
+        }
+        return find(id, depth - 1);
+    }
+
+    private static Object findLegacy(long id, int depth) {
+        if (depth == 0) {
+            throw new LegacyEntityNotFoundException(Employee.class, "id", Long.toString(id));
+        }
+        return findLegacy(id, depth - 1);
+    }
+}
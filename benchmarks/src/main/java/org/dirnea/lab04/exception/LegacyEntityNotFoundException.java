@@ -0,0 +1,35 @@
+package org.dirnea.lab04.exception;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * {@link EntityNotFoundException} as it was before it dropped the stack trace and the eager
+ * message: kept here only as the baseline of {@link EntityNotFoundExceptionBenchmark}.
+ */
+public class LegacyEntityNotFoundException extends RuntimeException {
+
+    public LegacyEntityNotFoundException(Class clazz, String... searchParamsMap) {
+        super(LegacyEntityNotFoundException.generateMessage(clazz.getSimpleName(), toMap(String.class, String.class, searchParamsMap)));
+    }
+
+    private static String generateMessage(String entity, Map<String, String> searchParams) {
+        return StringUtils.capitalize(entity) +
+                " was not found for parameters " +
+                searchParams;
+    }
+
+    private static <K, V> Map<K, V> toMap(
+            Class<K> keyType, Class<V> valueType, Object... entries) {
+        if (entries.length % 2 == 1)
+            throw new IllegalArgumentException("Invalid entries");
+        return IntStream.range(0, entries.length / 2).map(i -> i * 2)
+                .collect(HashMap::new,
+                        (m, i) -> m.put(keyType.cast(entries[i]), valueType.cast(entries[i + 1])),
+                        Map::putAll);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package org.dirnea.lab04.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.dirnea.lab04.Lab04Context;
+import org.dirnea.lab04.model.BatchItemResult;
+import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting {@code size} employees one {@code save} (and one transaction) at a time, the way
+ * {@code POST /employees} does, against {@link EmployeeBatchService} fed from an NDJSON body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class EmployeeBatchBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository repository;
+    private EmployeeBatchService batchService;
+    private ObjectReader reader;
+    private byte[] ndjson;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = Lab04Context.start(0);
+        repository = context.getBean(EmployeeRepository.class);
+        batchService = context.getBean(EmployeeBatchService.class);
+        reader = context.getBean(ObjectMapper.class).readerFor(Employee.class);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            body.append("{\"nombre\":\"Empleado ").append(i).append("\",\"cargo\":\"Student\"}\n");
+        }
+        ndjson = body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee saveOneByOne() throws IOException {
+        Employee last = null;
+        try (MappingIterator<Employee> employees = reader.readValues(ndjson)) {
+            while (employees.hasNextValue()) {
+                last = repository.save(employees.nextValue());
+            }
+        }
+        return last;
+    }
+
+    @Benchmark
+    public List<BatchItemResult> saveInBatches() throws IOException {
+        try (MappingIterator<Employee> employees = reader.readValues(ndjson)) {
+            return batchService.saveAll(employees);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmployeeBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,19 +1,46 @@
 package org.dirnea.lab01.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.dirnea.lab01.model.Greeting;
+import org.dirnea.lab01.util.GreetingWriter;
+import org.dirnea.lab01.util.IdBlockSequence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 @RestController
 public class GreetingController {
     private static final String template = "Hello, %s!";
-    private final AtomicLong counter = new AtomicLong();
+    private final IdBlockSequence counter;
+    private final GreetingWriter writer = new GreetingWriter();
+    private final ObjectMapper objectMapper;
 
+    // false: String.format + Jackson, para comparar ambos caminos con la misma URL
+    @Value("${greeting.fast-path:true}")
+    private boolean fastPath;
+
+    // Cada hilo reserva un bloque de ids, el contador compartido se toca una vez por bloque
+    public GreetingController(ObjectMapper objectMapper, @Value("${greeting.id-block-size:256}") int idBlockSize) {
+        this.objectMapper = objectMapper;
+        this.counter = new IdBlockSequence(idBlockSize);
+    }
+
+    // http://localhost:8080/greeting?name=Manuel
     @GetMapping("/greeting")
-    public Greeting greeting(@RequestParam(value="name", defaultValue = "World") String name){
-        return new Greeting(counter.incrementAndGet(), String.format(template, name));
+    public void greeting(@RequestParam(value="name", defaultValue = "World") String name,
+                         HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (fastPath) {
+            // Content-Length antes del cuerpo, con la respuesta aun sin confirmar: evita chunked
+            response.setContentLength(writer.render(counter.next(), name));
+            writer.writeTo(response.getOutputStream());
+        } else {
+            objectMapper.writeValue(response.getOutputStream(), new Greeting(counter.next(), String.format(template, name)));
+        }
     }
 }
@@ -0,0 +1,165 @@
+package org.dirnea.lab01.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the {@code {"id":..,"content":"Hello, X!"}} payload of {@code /greeting} straight
+ * to UTF-8 bytes. Every thread reuses its own buffer, so a request does not allocate the
+ * formatted string, the {@link org.dirnea.lab01.model.Greeting} nor Jackson's generator.
+ */
+public final class GreetingWriter {
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] CONTENT = ascii(",\"content\":\"Hello, ");
+    private static final byte[] END = ascii("!\"}");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    private static final int INITIAL_CAPACITY = 256;
+    // Un nombre enorme no debe dejar un buffer enorme colgado del hilo para siempre
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * Writes the greeting for {@code id} and {@code name} to {@code out}.
+     *
+     * @return number of bytes written
+     */
+    public int write(long id, String name, OutputStream out) throws IOException {
+        int size = render(id, name);
+        writeTo(out);
+        return size;
+    }
+
+    /**
+     * Renders the greeting into this thread's buffer without writing it, so the caller can
+     * send the length first.
+     *
+     * @return number of bytes {@link #writeTo} will write
+     */
+    public int render(long id, String name) {
+        Buffer buffer = buffers.get();
+        buffer.reset();
+        buffer.put(ID);
+        buffer.putLong(id);
+        buffer.put(CONTENT);
+        buffer.putEscaped(name);
+        buffer.put(END);
+        return buffer.size;
+    }
+
+    /** Writes the last greeting rendered by this thread. */
+    public void writeTo(OutputStream out) throws IOException {
+        Buffer buffer = buffers.get();
+        out.write(buffer.bytes, 0, buffer.size);
+        if (buffer.bytes.length > MAX_RETAINED_CAPACITY) {
+            buffers.remove();
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+        return bytes;
+    }
+
+    private static final class Buffer {
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void put(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        void putLong(long value) {
+            if (value == Long.MIN_VALUE) {
+                put(ascii(Long.toString(value)));
+                return;
+            }
+            ensure(20);
+            if (value < 0) {
+                bytes[size++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int pos = size + digits;
+            do {
+                bytes[--pos] = (byte) ('0' + (int) (value % 10));
+                value /= 10;
+            } while (value > 0);
+            size += digits;
+        }
+
+        // Mismo escape que Jackson: comillas, barra invertida y caracteres de control
+        void putEscaped(String value) {
+            int length = value.length();
+            // Peor caso: 6 bytes por caracter de control (\u001f)
+            ensure(length * 6);
+            byte[] b = bytes;
+            int p = size;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x20 && c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        b[p++] = '\\';
+                    }
+                    b[p++] = (byte) c;
+                } else if (c < 0x20) {
+                    b[p++] = '\\';
+                    switch (c) {
+                        case '\n': b[p++] = 'n'; break;
+                        case '\r': b[p++] = 'r'; break;
+                        case '\t': b[p++] = 't'; break;
+                        case '\b': b[p++] = 'b'; break;
+                        case '\f': b[p++] = 'f'; break;
+                        default:
+                            b[p++] = 'u';
+                            b[p++] = '0';
+                            b[p++] = '0';
+                            b[p++] = HEX[c >> 4];
+                            b[p++] = HEX[c & 0xF];
+                    }
+                } else if (c < 0x800) {
+                    b[p++] = (byte) (0xC0 | (c >> 6));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    b[p++] = (byte) (0xF0 | (cp >> 18));
+                    b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Surrogate suelto: igual que String.getBytes(UTF_8)
+                    b[p++] = '?';
+                } else {
+                    b[p++] = (byte) (0xE0 | (c >> 12));
+                    b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            size = p;
+        }
+
+        private void ensure(int extra) {
+            int required = size + extra;
+            if (required > bytes.length) {
+                byte[] grown = new byte[Math.max(required, bytes.length * 2)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+}
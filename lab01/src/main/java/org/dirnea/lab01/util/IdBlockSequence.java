@@ -0,0 +1,40 @@
+package org.dirnea.lab01.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unique ids without a single contended counter. Every thread reserves a block of
+ * {@code blockSize} ids from the shared {@link AtomicLong} and hands them out locally,
+ * so the shared cache line is only touched once per block.
+ * <p>
+ * Ids are unique and increase within one thread, but threads interleave: the global
+ * order is not the request order, and ids still unused in a block are lost when the
+ * thread dies.
+ */
+public final class IdBlockSequence {
+
+    private final AtomicLong next = new AtomicLong(1);
+    private final int blockSize;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public IdBlockSequence(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public long next() {
+        Block block = blocks.get();
+        if (block.next == block.limit) {
+            block.next = next.getAndAdd(blockSize);
+            block.limit = block.next + blockSize;
+        }
+        return block.next++;
+    }
+
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
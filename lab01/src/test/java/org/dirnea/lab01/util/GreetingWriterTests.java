@@ -0,0 +1,54 @@
+package org.dirnea.lab01.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dirnea.lab01.model.Greeting;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GreetingWriterTests {
+
+    private final GreetingWriter writer = new GreetingWriter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesTheSameBytesAsJackson() throws IOException {
+        for (String name : new String[]{"World", "", "Manuel \"Vega\"", "a\\b", "tab\tnew\nline\u0001\u001f",
+                "Peña", "日本", "emoji 😀"}) {
+            assertThat(write(42, name)).isEqualTo(jackson(42, name));
+        }
+    }
+
+    @Test
+    void writesNegativeAndLargeIds() throws IOException {
+        assertThat(write(0, "x")).isEqualTo(jackson(0, "x"));
+        assertThat(write(-7, "x")).isEqualTo(jackson(-7, "x"));
+        assertThat(write(Long.MAX_VALUE, "x")).isEqualTo(jackson(Long.MAX_VALUE, "x"));
+        assertThat(write(Long.MIN_VALUE, "x")).isEqualTo(jackson(Long.MIN_VALUE, "x"));
+    }
+
+    @Test
+    void growsForLongNames() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            name.append("\"ñ");
+        }
+        assertThat(write(1, name.toString())).isEqualTo(jackson(1, name.toString()));
+        assertThat(write(2, "World")).isEqualTo(jackson(2, "World"));
+    }
+
+    private String write(long id, String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int size = writer.write(id, name, out);
+        assertThat(size).isEqualTo(out.size());
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String jackson(long id, String name) throws IOException {
+        return objectMapper.writeValueAsString(new Greeting(id, String.format("Hello, %s!", name)));
+    }
+}
@@ -0,0 +1,64 @@
+package org.dirnea.lab01.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class IdBlockSequenceTests {
+
+    @Test
+    void singleThreadCountsFromOne() {
+        IdBlockSequence sequence = new IdBlockSequence(4);
+        for (long expected = 1; expected <= 10; expected++) {
+            assertThat(sequence.next()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndIncreasingWithinOne() throws Exception {
+        IdBlockSequence sequence = new IdBlockSequence(16);
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit((Callable<long[]>) () -> {
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = sequence.next();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertThat(all.add(ids[i])).isTrue();
+                    if (i > 0) {
+                        assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                    }
+                }
+            }
+            assertThat(all).hasSize(threads * perThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsEmptyBlocks() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new IdBlockSequence(0));
+    }
+}
@@ -3,21 +3,43 @@ package org.dirnea.lab02.database;
 import lombok.extern.slf4j.Slf4j;
 import org.dirnea.lab02.model.Employee;
 import org.dirnea.lab02.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 
+import java.util.concurrent.TimeUnit;
+
+// Carga inicial desde seed.employees (CSV, JSON o NDJSON), en bloques con saveAll.
+// Por defecto corre en segundo plano para que la aplicacion quede lista sin esperar la carga.
 @Configuration
 @Slf4j
 public class LoadDatabase {
 
     @Bean
-    CommandLineRunner initDatabase(EmployeeRepository repository){
+    CommandLineRunner initDatabase(EmployeeRepository repository, FixtureReader fixtureReader, TaskExecutor taskExecutor,
+                                   @Value("${seed.employees:}") String employees,
+                                   @Value("${seed.chunk-size:1000}") int chunkSize,
+                                   @Value("${seed.async:true}") boolean async) {
+        Runnable populate = () -> {
+            long start = System.nanoTime();
+            try {
+                long count = fixtureReader.read(employees, Employee.class,
+                        row -> new Employee(row.get("name"), row.get("role")),
+                        chunkSize, repository::saveAll);
+                log.info("Preloaded {} employees from '{}' in {} ms", count, employees,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (Exception ex) {
+                log.error("Could not populate the database", ex);
+            }
+        };
         return args -> {
-            log.info("Preloading " + repository.save(new Employee("Manuel Vega", "Instructor")));
-            log.info("Preloading " + repository.save(new Employee("Juan Pueblo", "Student")));
-            log.info("Preloading " + repository.save(new Employee("Peter Love", "Student")));
-            log.info("Preloading " + repository.save(new Employee("Armando Meza", "Student")));
+            if (async) {
+                taskExecutor.execute(populate);
+            } else {
+                populate.run();
+            }
         };
     }
 }
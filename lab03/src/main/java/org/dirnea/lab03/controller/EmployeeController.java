@@ -10,10 +10,17 @@ package org.dirnea.lab03.controller;
 import org.dirnea.lab03.model.Employee;
 import org.dirnea.lab03.repository.EmployeeRepository;
 import org.dirnea.lab03.util.EmployeeNotFoundException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,26 +32,51 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 //@Tag(name = "Empleado")
 public class EmployeeController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final EmployeeRepository repository;
 
     public EmployeeController(EmployeeRepository repository) {
         this.repository = repository;
     }
 
-    // Aggregate root
+    // Aggregate root, por paginas (keyset): cada pagina cuesta lo mismo sin importar que tan
+    // profundo se lea; sin parametros es la primera pagina
     // http://localohots:8080/employees
+    // http://localohots:8080/employees?after=4&limit=20
+    // http://localohots:8080/employees?before=25&limit=20
     @GetMapping("/employees")
-//    @Operation(description = "Listar todos los empleados", responses = {
-//            @ApiResponse(content = @Content(array = @ArraySchema(schema = @Schema(implementation = Employee.class))), responseCode = "200"),
-//            @ApiResponse(responseCode = "404", description = "No hay empleados")})
-    List<Employee> all() {
-        List<Employee> employees = repository.findAll();
+    CollectionModel<Employee> page(@RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Long before,
+                                   @RequestParam(defaultValue = "20") int limit) {
+        if (after != null && before != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after and before cannot be used together");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Employee> employees;
+        if (before != null) {
+            employees = new ArrayList<>(repository.findByIdLessThanOrderByIdDesc(before, PageRequest.of(0, size)));
+            Collections.reverse(employees);
+        } else {
+            employees = repository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.of(0, size));
+        }
         for (final Employee employee : employees) {
-            Link link = linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel();
-            employee.add(link);
+            employee.add(linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel());
         }
 
-        return employees;//repository.findAll();
+        List<Link> links = new ArrayList<>();
+        links.add(linkTo(methodOn(EmployeeController.class).page(after, before, size)).withSelfRel());
+        boolean hasNext = before != null ? !employees.isEmpty() : employees.size() == size;
+        boolean hasPrev = before != null ? employees.size() == size : after != null && !employees.isEmpty();
+        if (hasNext) {
+            Long last = employees.get(employees.size() - 1).getId();
+            links.add(linkTo(methodOn(EmployeeController.class).page(last, null, size)).withRel(IanaLinkRelations.NEXT));
+        }
+        if (hasPrev) {
+            Long first = employees.get(0).getId();
+            links.add(linkTo(methodOn(EmployeeController.class).page(null, first, size)).withRel(IanaLinkRelations.PREV));
+        }
+        return CollectionModel.of(employees, links);
     }
 
     @PostMapping("/employees")
@@ -71,7 +103,7 @@ public class EmployeeController {
         Employee employee = repository.findById(id).orElseThrow(() -> new EmployeeNotFoundException(id));
         Link link = linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel();
         employee.add(link);
-        link = linkTo(methodOn(EmployeeController.class).all()).withRel("todos");
+        link = linkTo(EmployeeController.class).slash("employees").withRel("todos");
         employee.add(link);
         return  employee;
 
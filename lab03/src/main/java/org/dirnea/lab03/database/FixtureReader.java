@@ -0,0 +1,178 @@
+package org.dirnea.lab03.database;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams seed fixtures from the classpath or the file system ({@code classpath:seed/employees.csv},
+ * {@code file:/data/employees.ndjson}) and hands them over in chunks, so a fixture file of any size
+ * is never held in memory at once.
+ * <p>
+ * Supported formats, chosen by extension: {@code .csv} with a header line, {@code .json} with a
+ * top level array and {@code .ndjson} with one object per line.
+ */
+@Component
+public class FixtureReader {
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    public FixtureReader(ResourceLoader resourceLoader, ObjectMapper objectMapper) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param location  resource location, nothing is read when it is empty
+     * @param type      element type for the JSON formats
+     * @param csvRow    maps a CSV row to an element
+     * @param chunkSize elements per chunk
+     * @param chunks    receives every chunk, e.g. {@code repository::saveAll}
+     * @return the number of elements read
+     * @throws IllegalArgumentException if a CSV row cannot be mapped, e.g. a column is missing
+     */
+    public <T> long read(String location, Class<T> type, Function<Row, T> csvRow,
+                         int chunkSize, Consumer<List<T>> chunks) throws IOException {
+        if (location == null || location.trim().isEmpty()) {
+            return 0;
+        }
+        Resource resource = resourceLoader.getResource(location.trim());
+        Chunker<T> chunker = new Chunker<>(chunkSize, chunks);
+        try (InputStream in = resource.getInputStream()) {
+            if (location.endsWith(".csv")) {
+                readCsv(location.trim(), in, csvRow, chunker);
+            } else {
+                try (MappingIterator<T> values = objectMapper.readerFor(type).readValues(in)) {
+                    while (values.hasNextValue()) {
+                        chunker.add(values.nextValue());
+                    }
+                }
+            }
+        }
+        return chunker.finish();
+    }
+
+    private static <T> void readCsv(String location, InputStream in, Function<Row, T> csvRow, Chunker<T> chunker)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            return;
+        }
+        Map<String, Integer> header = new HashMap<>();
+        List<String> names = parseCsvLine(line);
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i), i);
+        }
+        int number = 1;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            T value;
+            try {
+                value = csvRow.apply(new Row(header, parseCsvLine(line)));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException(location + ", line " + number + ": " + ex.getMessage(), ex);
+            }
+            chunker.add(value);
+        }
+    }
+
+    // Valores separados por coma, un valor entre comillas puede contener comas y "" escapa la comilla
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+
+    /** One CSV line, read by column name. */
+    public static final class Row {
+        private final Map<String, Integer> header;
+        private final List<String> values;
+
+        private Row(Map<String, Integer> header, List<String> values) {
+            this.header = header;
+            this.values = values;
+        }
+
+        /**
+         * @return the value of {@code column}, empty if the line is shorter than the header
+         * @throws IllegalArgumentException if the header has no such column
+         */
+        public String get(String column) {
+            Integer index = header.get(column);
+            if (index == null) {
+                throw new IllegalArgumentException("missing column '" + column + "', the header has " + header.keySet());
+            }
+            return index < values.size() ? values.get(index) : "";
+        }
+    }
+
+    private static final class Chunker<T> {
+        private final int chunkSize;
+        private final Consumer<List<T>> chunks;
+        private List<T> chunk;
+        private long count;
+
+        private Chunker(int chunkSize, Consumer<List<T>> chunks) {
+            this.chunkSize = Math.max(1, chunkSize);
+            this.chunks = chunks;
+            this.chunk = new ArrayList<>(this.chunkSize);
+        }
+
+        private void add(T value) {
+            chunk.add(value);
+            count++;
+            if (chunk.size() == chunkSize) {
+                chunks.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        private long finish() {
+            if (!chunk.isEmpty()) {
+                chunks.accept(chunk);
+            }
+            return count;
+        }
+    }
+}
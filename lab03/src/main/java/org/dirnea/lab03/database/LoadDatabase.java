@@ -1,42 +1,71 @@
 package org.dirnea.lab03.database;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dirnea.lab03.model.Employee;
 import org.dirnea.lab03.model.Order;
 import org.dirnea.lab03.model.Status;
 import org.dirnea.lab03.repository.EmployeeRepository;
 import org.dirnea.lab03.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 
+import java.util.concurrent.TimeUnit;
+
+// Carga inicial desde los archivos de seed.* (CSV, JSON o NDJSON), en bloques con saveAll.
+// Por defecto corre en segundo plano para que la aplicacion quede lista sin esperar la carga.
 @Configuration
 @Slf4j
-@AllArgsConstructor
-public class LoadDatabase implements ApplicationRunner{
-
-    private EmployeeRepository employeeRepository;
-    private OrderRepository orderRepository;
+public class LoadDatabase implements ApplicationRunner {
 
-    @Override
-    public void run(ApplicationArguments args) throws Exception {
-        log.info("Populating database with sample data...");
-        log.info("Preloading " + employeeRepository.save(new Employee("Manuel Vega", "Instructor")));
-        log.info("Preloading " + employeeRepository.save(new Employee("Juan Pueblo", "Student")));
-        log.info("Preloading " + employeeRepository.save(new Employee("Peter Love", "Student")));
-        log.info("Preloading " + employeeRepository.save(new Employee("Armando Meza", "Student")));
+    private final EmployeeRepository employeeRepository;
+    private final OrderRepository orderRepository;
+    private final FixtureReader fixtureReader;
+    private final TaskExecutor taskExecutor;
 
-        orderRepository.save(new Order("Dell 324", Status.CANCELLED));
-        orderRepository.save(new Order("MacBook Pro", Status.COMPLETED));
-        orderRepository.save(new Order("iPhone", Status.IN_PROGRESS));
+    @Value("${seed.employees:}")
+    private String employees;
+    @Value("${seed.orders:}")
+    private String orders;
+    @Value("${seed.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${seed.async:true}")
+    private boolean async;
 
-        orderRepository.findAll().forEach(order -> {
-            log.info("Preloaded " + order.getId() + " -- " + order.getDescription() + " - Status: " + order.getStatus().toString());
-        });
+    public LoadDatabase(EmployeeRepository employeeRepository, OrderRepository orderRepository,
+                        FixtureReader fixtureReader, TaskExecutor taskExecutor) {
+        this.employeeRepository = employeeRepository;
+        this.orderRepository = orderRepository;
+        this.fixtureReader = fixtureReader;
+        this.taskExecutor = taskExecutor;
+    }
 
+    @Override
+    public void run(ApplicationArguments args) {
+        if (async) {
+            taskExecutor.execute(this::populate);
+        } else {
+            populate();
+        }
     }
 
+    private void populate() {
+        log.info("Populating database with sample data...");
+        long start = System.nanoTime();
+        try {
+            long employeeCount = fixtureReader.read(employees, Employee.class,
+                    row -> new Employee(row.get("name"), row.get("role")),
+                    chunkSize, employeeRepository::saveAll);
+            long orderCount = fixtureReader.read(orders, Order.class,
+                    row -> new Order(row.get("description"), Status.valueOf(row.get("status"))),
+                    chunkSize, orderRepository::saveAll);
+            log.info("Preloaded {} employees from '{}' and {} orders from '{}' in {} ms",
+                    employeeCount, employees, orderCount, orders,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception ex) {
+            log.error("Could not populate the database", ex);
+        }
+    }
 }
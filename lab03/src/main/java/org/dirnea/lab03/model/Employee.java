@@ -8,13 +8,19 @@ import org.springframework.hateoas.RepresentationModel;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 
 @Data
 @Entity
 public class Employee extends RepresentationModel<Employee> {
 
-    private @Id @GeneratedValue Long id;
+    // Secuencia con bloques de 50 ids: IDENTITY desactivaria los batch inserts de la carga inicial
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employee_seq", allocationSize = 50)
+    private Long id;
     private String name;
     private String role;
 
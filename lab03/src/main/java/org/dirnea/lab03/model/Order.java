@@ -6,7 +6,9 @@ import org.springframework.hateoas.RepresentationModel;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 @Entity
@@ -14,7 +16,11 @@ import javax.persistence.Table;
 @Data
 public class Order extends RepresentationModel<Order> {
 
-    private @Id @GeneratedValue Long id;
+    // Secuencia con bloques de 50 ids: IDENTITY desactivaria los batch inserts de la carga inicial
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
+    private Long id;
     private String description;
     private Status status;
 
@@ -1,7 +1,16 @@
 package org.dirnea.lab03.repository;
 
 import org.dirnea.lab03.model.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    // Keyset pagination: the primary key index is used to seek directly to the page,
+    // no OFFSET and no full scan no matter how deep the client is reading.
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    List<Employee> findByIdLessThanOrderByIdDesc(Long before, Pageable pageable);
 }
@@ -2,6 +2,7 @@ package org.dirnea.lab04.apierror;
 
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
 import lombok.Data;
@@ -16,6 +17,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @Data
 @JsonTypeInfo(include = JsonTypeInfo.As.WRAPPER_OBJECT, use = JsonTypeInfo.Id.CUSTOM, property = "error", visible = true)
@@ -29,6 +31,8 @@ class ApiError {
     private String message;
     private String debugMessage;
     private List<ApiSubError> subErrors;
+    @JsonIgnore
+    private Supplier<String> lazyMessage;
 
     private ApiError() {
         timestamp = LocalDateTime.now();
@@ -53,6 +57,24 @@ class ApiError {
         this.debugMessage = ex.getLocalizedMessage();
     }
 
+    /**
+     * Message built only when it is read, normally while the body is serialised.
+     *
+     * @param message supplier of the message, e.g. {@code ex::getMessage}
+     */
+    public void setLazyMessage(Supplier<String> message) {
+        this.message = null;
+        this.lazyMessage = message;
+    }
+
+    public String getMessage() {
+        if (message == null && lazyMessage != null) {
+            message = lazyMessage.get();
+            lazyMessage = null;
+        }
+        return message;
+    }
+
     private void addSubError(ApiSubError subError) {
         if (subErrors == null) {
             subErrors = new ArrayList<>();
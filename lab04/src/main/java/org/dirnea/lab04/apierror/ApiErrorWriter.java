@@ -0,0 +1,136 @@
+package org.dirnea.lab04.apierror;
+
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Renders an {@link ApiError} to the same JSON bytes Jackson produces for it
+ * ({@code {"apierror":{"status":..,"timestamp":..,"message":..}}}), without the polymorphic
+ * type resolution. The opening of the body is pre-rendered per status and the timestamp is
+ * formatted once per second; only the messages are escaped per request.
+ * Errors with sub errors are left to Jackson.
+ */
+public final class ApiErrorWriter {
+
+    private static final String TIMESTAMP_PATTERN = "dd-MM-yyyy hh:mm:ss";
+    private static final byte[] MESSAGE = ascii(",\"message\":\"");
+    private static final byte[] DEBUG_MESSAGE = ascii(",\"debugMessage\":\"");
+    private static final byte[] QUOTE = ascii("\"");
+    private static final byte[] END = ascii("}}");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(TIMESTAMP_PATTERN);
+    private final Map<HttpStatus, byte[]> prefixes = new EnumMap<>(HttpStatus.class);
+    private volatile Timestamp lastTimestamp = new Timestamp(LocalDateTime.MIN, new byte[0]);
+
+    public ApiErrorWriter() {
+        for (HttpStatus status : HttpStatus.values()) {
+            prefixes.put(status, ascii("{\"apierror\":{\"status\":\"" + status.name() + "\",\"timestamp\":\""));
+        }
+    }
+
+    /**
+     * @return the body of {@code apiError}, or {@code null} if it has to go through Jackson
+     */
+    public byte[] write(ApiError apiError) {
+        if (apiError.getSubErrors() != null || apiError.getStatus() == null || apiError.getTimestamp() == null) {
+            return null;
+        }
+        byte[] prefix = prefixes.get(apiError.getStatus());
+        byte[] timestamp = timestamp(apiError.getTimestamp());
+        byte[] message = escaped(apiError.getMessage());
+        byte[] debugMessage = escaped(apiError.getDebugMessage());
+
+        int size = prefix.length + timestamp.length + QUOTE.length + END.length;
+        if (message != null) {
+            size += MESSAGE.length + message.length + QUOTE.length;
+        }
+        if (debugMessage != null) {
+            size += DEBUG_MESSAGE.length + debugMessage.length + QUOTE.length;
+        }
+        byte[] body = new byte[size];
+        int pos = put(body, 0, prefix);
+        pos = put(body, pos, timestamp);
+        pos = put(body, pos, QUOTE);
+        if (message != null) {
+            pos = put(body, pos, MESSAGE);
+            pos = put(body, pos, message);
+            pos = put(body, pos, QUOTE);
+        }
+        if (debugMessage != null) {
+            pos = put(body, pos, DEBUG_MESSAGE);
+            pos = put(body, pos, debugMessage);
+            pos = put(body, pos, QUOTE);
+        }
+        put(body, pos, END);
+        return body;
+    }
+
+    private byte[] timestamp(LocalDateTime value) {
+        LocalDateTime second = value.truncatedTo(ChronoUnit.SECONDS);
+        Timestamp last = lastTimestamp;
+        if (!last.second.equals(second)) {
+            // Carrera benigna: dos hilos pueden formatear el mismo segundo
+            last = new Timestamp(second, ascii(formatter.format(second)));
+            lastTimestamp = last;
+        }
+        return last.formatted;
+    }
+
+    // Mismo escape que Jackson: comillas, barra invertida y caracteres de control
+    private static byte[] escaped(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder builder = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                if (builder != null) {
+                    builder.append(c);
+                }
+                continue;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            builder.append('\\');
+            switch (c) {
+                case '"': builder.append('"'); break;
+                case '\\': builder.append('\\'); break;
+                case '\n': builder.append('n'); break;
+                case '\r': builder.append('r'); break;
+                case '\t': builder.append('t'); break;
+                case '\b': builder.append('b'); break;
+                case '\f': builder.append('f'); break;
+                default: builder.append("u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        return (builder != null ? builder.toString() : value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int put(byte[] body, int pos, byte[] value) {
+        System.arraycopy(value, 0, body, pos, value.length);
+        return pos + value.length;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class Timestamp {
+        private final LocalDateTime second;
+        private final byte[] formatted;
+
+        private Timestamp(LocalDateTime second, byte[] formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
+}
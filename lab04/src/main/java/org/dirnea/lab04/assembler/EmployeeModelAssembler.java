@@ -0,0 +1,24 @@
+package org.dirnea.lab04.assembler;
+
+import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.model.EmployeeModel;
+import org.dirnea.lab04.util.LinkTemplates;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EmployeeModelAssembler implements RepresentationModelAssembler<Employee, EmployeeModel> {
+
+    private final LinkTemplates links;
+
+    public EmployeeModelAssembler(LinkTemplates links) {
+        this.links = links;
+    }
+
+    @Override
+    public EmployeeModel toModel(Employee employee) {
+        EmployeeModel model = new EmployeeModel(employee.getId(), employee.getName(), employee.getRole());
+        model.add(links.employee(employee.getId()));
+        return model;
+    }
+}
@@ -0,0 +1,24 @@
+package org.dirnea.lab04.assembler;
+
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.OrderModel;
+import org.dirnea.lab04.util.LinkTemplates;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OrderModelAssembler implements RepresentationModelAssembler<Order, OrderModel> {
+
+    private final LinkTemplates links;
+
+    public OrderModelAssembler(LinkTemplates links) {
+        this.links = links;
+    }
+
+    @Override
+    public OrderModel toModel(Order order) {
+        OrderModel model = new OrderModel(order.getId(), order.getDescription(), order.getStatus());
+        model.add(links.order(order.getId()));
+        return model;
+    }
+}
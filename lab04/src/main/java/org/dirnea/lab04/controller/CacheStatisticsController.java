@@ -0,0 +1,48 @@
+package org.dirnea.lab04.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@Tag(name = "Cache")
+public class CacheStatisticsController {
+
+    private final Statistics statistics;
+
+    public CacheStatisticsController(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Aciertos y fallos por region del cache de segundo nivel
+    // http://localhost:8088/cache/stats
+    @Operation(description = "Estadisticas del cache de segundo nivel por region")
+    @GetMapping("/cache/stats")
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long hits = region.getHitCount();
+            long misses = region.getMissCount();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("hits", hits);
+            values.put("misses", misses);
+            values.put("puts", region.getPutCount());
+            values.put("hitRatio", hits + misses == 0 ? 0d : (double) hits / (hits + misses));
+            regions.put(regionName, values);
+        }
+        return regions;
+    }
+}
@@ -1,5 +1,7 @@
 package org.dirnea.lab04.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -7,17 +9,42 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.dirnea.lab04.assembler.EmployeeModelAssembler;
 import org.dirnea.lab04.exception.EntityNotFoundException;
+import org.dirnea.lab04.exception.InvalidParametersException;
+import org.dirnea.lab04.exception.PreconditionFailedException;
+import org.dirnea.lab04.model.BatchItemResult;
 import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.model.EmployeeHitModel;
+import org.dirnea.lab04.model.EmployeeModel;
 import org.dirnea.lab04.repository.EmployeeRepository;
+import org.dirnea.lab04.search.EmployeeIndex;
+import org.dirnea.lab04.service.EmployeeBatchService;
+import org.dirnea.lab04.util.ETags;
+import org.dirnea.lab04.util.LinkTemplates;
+import org.dirnea.lab04.util.TableVersions;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import static org.dirnea.lab04.util.MediaTypes.APPLICATION_NDJSON_VALUE;
 
 
 @RestController
@@ -25,40 +52,169 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 public class EmployeeController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final LinkRelation TODOS = LinkRelation.of("todos");
+
     private final EmployeeRepository repository;
+    private final LinkTemplates links;
+    private final EmployeeModelAssembler assembler;
+    private final EmployeeBatchService batchService;
+    private final ObjectMapper objectMapper;
+    private final TableVersions tableVersions;
+    private final EmployeeIndex index;
 
-    public EmployeeController(EmployeeRepository repository) {
+    public EmployeeController(EmployeeRepository repository, LinkTemplates links, EmployeeModelAssembler assembler,
+                              EmployeeBatchService batchService, ObjectMapper objectMapper, TableVersions tableVersions,
+                              EmployeeIndex index) {
         this.repository = repository;
+        this.links = links;
+        this.assembler = assembler;
+        this.batchService = batchService;
+        this.objectMapper = objectMapper;
+        this.tableVersions = tableVersions;
+        this.index = index;
     }
 
-    // Aggregate root
+    // Aggregate root, por paginas (keyset): cada pagina cuesta lo mismo sin importar que tan
+    // profundo se lea; sin parametros es la primera pagina
+    // ETag debil = version de la tabla, con If-None-Match igual se responde 304 sin consultar
     // http://localohots:8080/employees
-    @Operation(description = "Listar todos los empleados", responses = {
-            @ApiResponse(content = @Content(array = @ArraySchema(schema = @Schema(implementation = Employee.class))), responseCode = "200"),
-            @ApiResponse(responseCode = "404", description = "No hay empleados")})
+    // http://localohots:8080/employees?after=4&limit=20
+    // http://localohots:8080/employees?before=25&limit=20
+    // Filtros opcionales, por indice: role exacto y prefijo del nombre
+    // http://localohots:8080/employees?role=Instructor&namePrefix=Ma&limit=20
+    @Operation(description = "Listar empleados por paginas (keyset), filtrando por cargo o prefijo del nombre", responses = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "after y before a la vez")})
     @GetMapping("/employees")
-    List<Employee> all() {
-        List<Employee> employees = repository.findAll();
-        for (final Employee employee : employees) {
-            Link link = linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel();
-            employee.add(link);
+    @Transactional(readOnly = true)
+    public CollectionModel<EmployeeModel> page(@RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Long before,
+                                   @RequestParam(defaultValue = "20") int limit,
+                                   @RequestParam(required = false) String role,
+                                   @RequestParam(required = false) String namePrefix,
+                                   WebRequest request) {
+        if (after != null && before != null) {
+            throw new InvalidParametersException("after and before cannot be used together");
+        }
+        if (request.checkNotModified(tableVersions.etag(Employee.class))) {
+            return null;
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        role = StringUtils.hasText(role) ? role : null;
+        namePrefix = StringUtils.hasText(namePrefix) ? namePrefix : null;
+        List<Employee> employees;
+        if (before != null) {
+            employees = new ArrayList<>(seekBefore(role, namePrefix, before, PageRequest.of(0, size)));
+            Collections.reverse(employees);
+        } else {
+            employees = seekAfter(role, namePrefix, after == null ? 0L : after, PageRequest.of(0, size));
+        }
+
+        List<Link> pageLinks = new ArrayList<>();
+        pageLinks.add(pageLink(after, before, size, role, namePrefix, IanaLinkRelations.SELF));
+        boolean hasNext = before != null ? !employees.isEmpty() : employees.size() == size;
+        boolean hasPrev = before != null ? employees.size() == size : after != null && !employees.isEmpty();
+        if (hasNext) {
+            Long last = employees.get(employees.size() - 1).getId();
+            pageLinks.add(pageLink(last, null, size, role, namePrefix, IanaLinkRelations.NEXT));
+        }
+        if (hasPrev) {
+            Long first = employees.get(0).getId();
+            pageLinks.add(pageLink(null, first, size, role, namePrefix, IanaLinkRelations.PREV));
+        }
+        return assembler.toCollectionModel(employees).add(pageLinks);
+    }
+
+    private Link pageLink(Long after, Long before, int size, String role, String namePrefix, LinkRelation rel) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(links.employees(rel).getHref());
+        if (after != null) {
+            uri.queryParam("after", after);
+        }
+        if (before != null) {
+            uri.queryParam("before", before);
+        }
+        uri.queryParam("limit", size);
+        if (role != null) {
+            uri.queryParam("role", role);
+        }
+        if (namePrefix != null) {
+            uri.queryParam("namePrefix", namePrefix);
+        }
+        // role y namePrefix vienen del cliente
+        return Link.of(uri.encode().toUriString(), rel);
+    }
+
+    private List<Employee> seekAfter(String role, String namePrefix, long after, Pageable page) {
+        if (role != null && namePrefix != null) {
+            return repository.findByRoleAndNameStartingWithAndIdGreaterThanOrderByIdAsc(role, namePrefix, after, page);
+        }
+        if (role != null) {
+            return repository.findByRoleAndIdGreaterThanOrderByIdAsc(role, after, page);
+        }
+        if (namePrefix != null) {
+            return repository.findByNameStartingWithAndIdGreaterThanOrderByIdAsc(namePrefix, after, page);
         }
+        return repository.findByIdGreaterThanOrderByIdAsc(after, page);
+    }
 
-        return employees;//repository.findAll();
+    private List<Employee> seekBefore(String role, String namePrefix, long before, Pageable page) {
+        if (role != null && namePrefix != null) {
+            return repository.findByRoleAndNameStartingWithAndIdLessThanOrderByIdDesc(role, namePrefix, before, page);
+        }
+        if (role != null) {
+            return repository.findByRoleAndIdLessThanOrderByIdDesc(role, before, page);
+        }
+        if (namePrefix != null) {
+            return repository.findByNameStartingWithAndIdLessThanOrderByIdDesc(namePrefix, before, page);
+        }
+        return repository.findByIdLessThanOrderByIdDesc(before, page);
+    }
+
+    // Busqueda aproximada por nombre y cargo (prefijos y erratas), desde el indice en memoria
+    // http://localohots:8080/employees/search?q=manuel instr
+    @Operation(description = "Buscar empleados por nombre o cargo", responses = {
+            @ApiResponse(responseCode = "200")})
+    @GetMapping("/employees/search")
+    public CollectionModel<EmployeeHitModel> search(@RequestParam String q,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        List<EmployeeHitModel> hits = new ArrayList<>();
+        for (EmployeeIndex.Hit hit : index.search(q, size)) {
+            EmployeeHitModel model = new EmployeeHitModel(hit.getId(), hit.getName(), hit.getRole(), hit.getScore());
+            hits.add(model.add(links.employee(hit.getId())));
+        }
+        return CollectionModel.of(hits, links.employees(TODOS));
+    }
+
+    // Alta masiva: arreglo JSON o NDJSON (un empleado por linea), se lee en streaming y se guarda
+    // en bloques con JDBC batch. Devuelve el resultado de cada elemento en el orden recibido.
+    // Solo crea: id y version de la entrada se ignoran, no actualiza empleados existentes.
+    // curl -X POST localhost:8088/employees/batch -H 'Content-Type: application/x-ndjson' --data-binary @empleados.ndjson
+    @PostMapping(value = "/employees/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    @Operation(description = "Crear empleados en lote (solo altas, se ignoran id y version)", responses = {
+            @ApiResponse(content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class))), responseCode = "200")})
+    List<BatchItemResult> newEmployees(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Employee> employees = objectMapper.readerFor(Employee.class).readValues(request.getInputStream())) {
+            return batchService.saveAll(employees);
+        }
     }
 
     @PostMapping("/employees")
     @Operation(description = "Crear un nuevo empleado", responses = {
-            @ApiResponse(content = @Content(schema = @Schema(implementation = Employee.class), mediaType = MediaType.APPLICATION_JSON_VALUE), headers = @Header(name = "Empleado"), responseCode = "201"),
+            @ApiResponse(content = @Content(schema = @Schema(implementation = EmployeeModel.class), mediaType = MediaType.APPLICATION_JSON_VALUE), headers = @Header(name = "Empleado"), responseCode = "201"),
             @ApiResponse(responseCode = "409", description = "El empleado ya existe") })
-    Employee newEmployee(@RequestBody Employee employee) {
-        return repository.save(employee);
+    EmployeeModel newEmployee(@RequestBody Employee employee) {
+        return assembler.toModel(repository.save(employee));
     }
 
     // Single item
     // http://localohots:8080/employees/4
+    // ETag = version de la entidad, con If-None-Match igual se responde 304 sin cuerpo
     @GetMapping("/employees/{id}")
-    Employee one(@PathVariable Long id) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<EmployeeModel> one(@PathVariable Long id, WebRequest request) {
         //{ "id": 1, "name":"Manuel Vega", "role":"Instructor"}
         // utilizando los mensaje de HTTP
 //        Optional<Employee> employee = repository.findById(id);
@@ -69,11 +225,11 @@ public class EmployeeController {
 //        return employee.get();
         //utilizando mis propiios mensaje a las excepciones
         Employee employee = repository.findById(id).orElseThrow(() -> new EntityNotFoundException(Employee.class, "id", id.toString()));
-        Link link = linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel();
-        employee.add(link);
-        link = linkTo(methodOn(EmployeeController.class).all()).withRel("todos");
-        employee.add(link);
-        return  employee;
+        String etag = ETags.of(employee.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(assembler.toModel(employee).add(links.employees(TODOS)));
 
     }
 
@@ -82,24 +238,51 @@ public class EmployeeController {
     // Long id = 4;
     // employee ---> tabla, tiene unas columnas : id, name y role
     // insert into employee (name, role) values ("manuel vega", "student")
+    // If-Match opcional: si no coincide con la version actual se responde 412
+    // If-None-Match opcional: si coincide (o es * y el empleado existe) tambien 412
     @PutMapping("/employees/{id}")
-    Employee replaceEmployee(@RequestBody Employee employee, @PathVariable Long id) {
-        return repository.findById(id).map(employeeTemp -> { // variable temporal llamada employeeTemp
+    ResponseEntity<EmployeeModel> replaceEmployee(@RequestBody Employee employee, @PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Employee saved = repository.findById(id).map(employeeTemp -> { // variable temporal llamada employeeTemp
+            checkPreconditions(employeeTemp, ifMatch, ifNoneMatch);
             employeeTemp.setName(employee.getName());
             employeeTemp.setRole(employee.getRole());
             return repository.save(employeeTemp); // update
         }).orElseGet(() -> {
+                    if (ifMatch != null) {
+                        throw new PreconditionFailedException(Employee.class, id, ifMatch);
+                    }
                     employee.setId(id);
                     return repository.save(employee); // insert
                 }
         );
+        return ResponseEntity.ok().eTag(ETags.of(saved.getVersion())).body(assembler.toModel(saved));
     }
 
     @DeleteMapping("/employees/{id}")
     @Operation(description = "Borrar un empleado", responses = {
             @ApiResponse(responseCode = "204", description = "PEl empleado fue borrado"),
-            @ApiResponse(responseCode = "404", description = "Empleado no existe") })
-    void deleteEmployee(@PathVariable Long id) {
-        repository.deleteById(id);
+            @ApiResponse(responseCode = "404", description = "Empleado no existe"),
+            @ApiResponse(responseCode = "412", description = "If-Match no coincide o If-None-Match coincide con la version actual") })
+    void deleteEmployee(@PathVariable Long id,
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifMatch == null && ifNoneMatch == null) {
+            repository.deleteById(id);
+            return;
+        }
+        Employee employee = repository.findById(id).orElseThrow(() -> new EntityNotFoundException(Employee.class, "id", id.toString()));
+        checkPreconditions(employee, ifMatch, ifNoneMatch);
+        repository.delete(employee); // delete ... where id = ? and version = ?
+    }
+
+    private static void checkPreconditions(Employee employee, String ifMatch, String ifNoneMatch) {
+        if (!ETags.matches(ifMatch, employee.getVersion())) {
+            throw new PreconditionFailedException(Employee.class, employee.getId(), ifMatch);
+        }
+        if (!ETags.matchesNone(ifNoneMatch, employee.getVersion())) {
+            throw PreconditionFailedException.ifNoneMatch(Employee.class, employee.getId(), ifNoneMatch);
+        }
     }
 }
@@ -1,82 +1,305 @@
-package org.dirnea.lab03.controller;
+package org.dirnea.lab04.controller;
 
-import org.dirnea.lab03.model.Order;
-import org.dirnea.lab03.model.Status;
-import org.dirnea.lab03.repository.OrderRepository;
-import org.dirnea.lab03.util.OrderNotFoundException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dirnea.lab04.assembler.OrderModelAssembler;
+import org.dirnea.lab04.events.OrderEvent;
+import org.dirnea.lab04.events.OrderEventLog;
+import org.dirnea.lab04.exception.EntityNotFoundException;
+import org.dirnea.lab04.exception.InvalidParametersException;
+import org.dirnea.lab04.exception.InvalidStateTransitionException;
+import org.dirnea.lab04.exception.PreconditionFailedException;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.OrderModel;
+import org.dirnea.lab04.model.Status;
+import org.dirnea.lab04.repository.OrderRepository;
+import org.dirnea.lab04.service.OrderStatusCounts;
+import org.dirnea.lab04.service.OrderWriteBehind;
+import org.dirnea.lab04.util.ETags;
+import org.dirnea.lab04.util.LinkTemplates;
+import org.dirnea.lab04.util.TableVersions;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import static org.dirnea.lab04.util.MediaTypes.APPLICATION_NDJSON_VALUE;
 
 @RestController
 class OrderController {
 
+    private static final LinkRelation TODOS = LinkRelation.of("todos");
+    private static final LinkRelation CANCEL = LinkRelation.of("cancel");
+    private static final LinkRelation COMPLETE = LinkRelation.of("complete");
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final LinkTemplates links;
+    private final OrderModelAssembler assembler;
+    private final TableVersions tableVersions;
+    private final OrderStatusCounts statusCounts;
+    private final OrderEventLog eventLog;
+    private final OrderWriteBehind writeBehind;
 
-    public OrderController(OrderRepository orderRepository) {
+    public OrderController(OrderRepository orderRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                           LinkTemplates links, OrderModelAssembler assembler, TableVersions tableVersions,
+                           OrderStatusCounts statusCounts, OrderEventLog eventLog, OrderWriteBehind writeBehind) {
         this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.links = links;
+        this.assembler = assembler;
+        this.tableVersions = tableVersions;
+        this.statusCounts = statusCounts;
+        this.eventLog = eventLog;
+        this.writeBehind = writeBehind;
+    }
+
+    // ETag debil = version de la tabla, con If-None-Match igual se responde 304 sin consultar
+    @GetMapping(value = "/orders", params = {"!after", "!before", "!limit", "!status"})
+    @Transactional(readOnly = true)
+    public List<OrderModel> all(WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(Order.class))) {
+            return null;
+        }
+        return orderRepository.findAll().stream()
+                .map(assembler::toModel)
+                .collect(Collectors.toList());
     }
 
+    // Keyset pagination, opcionalmente solo las ordenes de un estado
+    // http://localhost:8088/orders?status=IN_PROGRESS&limit=20
+    // http://localhost:8088/orders?status=IN_PROGRESS&after=40&limit=20
     @GetMapping("/orders")
-    List<Order> all() {
-        List<Order> orders = orderRepository.findAll();
-        for (final Order order : orders) {
-            Link link = linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel();
-            order.add(link);
+    @Transactional(readOnly = true)
+    public CollectionModel<OrderModel> page(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Long before,
+                                            @RequestParam(defaultValue = "20") int limit,
+                                            @RequestParam(required = false) Status status,
+                                            WebRequest request) {
+        if (after != null && before != null) {
+            throw new InvalidParametersException("after and before cannot be used together");
+        }
+        if (request.checkNotModified(tableVersions.etag(Order.class))) {
+            return null;
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Order> orders;
+        if (before != null) {
+            orders = new ArrayList<>(seekBefore(status, before, PageRequest.of(0, size)));
+            Collections.reverse(orders);
+        } else {
+            orders = seekAfter(status, after == null ? 0L : after, PageRequest.of(0, size));
+        }
+
+        List<Link> pageLinks = new ArrayList<>();
+        pageLinks.add(pageLink(after, before, size, status, IanaLinkRelations.SELF));
+        boolean hasNext = before != null ? !orders.isEmpty() : orders.size() == size;
+        boolean hasPrev = before != null ? orders.size() == size : after != null && !orders.isEmpty();
+        if (hasNext) {
+            pageLinks.add(pageLink(orders.get(orders.size() - 1).getId(), null, size, status, IanaLinkRelations.NEXT));
+        }
+        if (hasPrev) {
+            pageLinks.add(pageLink(null, orders.get(0).getId(), size, status, IanaLinkRelations.PREV));
+        }
+        return assembler.toCollectionModel(orders).add(pageLinks);
+    }
+
+    // Ordenes por estado desde el contador en memoria, sin COUNT(*)
+    // http://localhost:8088/orders/stats  ->  {"IN_PROGRESS":3,"COMPLETED":1,"CANCELLED":0}
+    @GetMapping("/orders/stats")
+    public Map<Status, Long> stats() {
+        return statusCounts.snapshot();
+    }
+
+    private List<Order> seekAfter(Status status, long after, Pageable page) {
+        return status == null
+                ? orderRepository.findByIdGreaterThanOrderByIdAsc(after, page)
+                : orderRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, after, page);
+    }
+
+    private List<Order> seekBefore(Status status, long before, Pageable page) {
+        return status == null
+                ? orderRepository.findByIdLessThanOrderByIdDesc(before, page)
+                : orderRepository.findByStatusAndIdLessThanOrderByIdDesc(status, before, page);
+    }
+
+    private Link pageLink(Long after, Long before, int size, Status status, LinkRelation rel) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(links.orders(rel).getHref());
+        if (after != null) {
+            uri.queryParam("after", after);
+        }
+        if (before != null) {
+            uri.queryParam("before", before);
+        }
+        uri.queryParam("limit", size);
+        if (status != null) {
+            uri.queryParam("status", status);
         }
-        return orders;
+        return Link.of(uri.toUriString(), rel);
     }
 
 
+    // Exportacion de todas las ordenes como NDJSON (una orden por linea).
+    // Las filas se leen con un cursor y se escriben directo a la respuesta, la memoria
+    // se mantiene constante y el primer byte sale antes de que termine la consulta.
+    // http://localhost:8088/orders/export
+    @GetMapping(value = "/orders/export", produces = APPLICATION_NDJSON_VALUE)
+    @Transactional(readOnly = true)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (Stream<Order> orders = orderRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            boolean first = true;
+            for (Iterator<Order> it = orders.iterator(); it.hasNext(); ) {
+                Order order = it.next();
+                generator.writeStartObject();
+                generator.writeNumberField("id", order.getId());
+                generator.writeStringField("description", order.getDescription());
+                generator.writeStringField("status", order.getStatus() == null ? null : order.getStatus().name());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                // sin detach el contexto de persistencia retiene cada fila leida
+                entityManager.detach(order);
+                if (first) {
+                    generator.flush();
+                    response.flushBuffer();
+                    first = false;
+                }
+            }
+        }
+    }
+
     @GetMapping("/orders/{id}")
-    Order one(@PathVariable Long id) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new OrderNotFoundException(id));
-        order.add(linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel());
-        order.add(linkTo(methodOn(OrderController.class).all()).withRel("todos"));
+    @Transactional(readOnly = true)
+    public ResponseEntity<OrderModel> one(@PathVariable Long id, WebRequest request) {
+        Optional<Order> found = orderRepository.findById(id);
+        if (!found.isPresent()) {
+            // aceptada en modo write-behind y todavia en la cola: 202 hasta que se inserte
+            return writeBehind.pending(id)
+                    .map(pending -> ResponseEntity.accepted().body(assembler.toModel(pending)))
+                    .orElseThrow(() -> new EntityNotFoundException(Order.class, "id", id.toString()));
+        }
+        Order order = found.get();
+        String etag = ETags.of(order.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        OrderModel model = assembler.toModel(order);
+        model.add(links.orders(TODOS));
 
         if (order.getStatus() == Status.IN_PROGRESS) {
-            order.add(linkTo(methodOn(OrderController.class).cancel(order.getId())).withRel("cancel"));
-            order.add(linkTo(methodOn(OrderController.class).complete(order.getId())).withRel("complete"));
+            model.add(links.cancel(order.getId(), CANCEL));
+            model.add(links.complete(order.getId(), COMPLETE));
         }
-        return order;
+        return ResponseEntity.ok().eTag(etag).body(model);
     }
 
+    // Historial de la orden desde el log de eventos, el mas antiguo primero
+    // http://localhost:8088/orders/1/events
+    @GetMapping("/orders/{id}/events")
+    public List<OrderEvent> events(@PathVariable Long id) {
+        List<OrderEvent> events = eventLog.history(id);
+        if (events.isEmpty() && !orderRepository.existsById(id)) {
+            throw new EntityNotFoundException(Order.class, "id", id.toString());
+        }
+        return events;
+    }
+
+    // Con orders.write-behind.enabled la orden se encola y se responde 202 con su enlace,
+    // GET /orders/{id} tambien responde 202 mientras no este en la tabla
     @PostMapping("/orders")
-    Order newOrder(@RequestBody Order order) {
+    ResponseEntity<OrderModel> newOrder(@RequestBody Order order) {
 
         order.setStatus(Status.IN_PROGRESS);
+        if (writeBehind.isEnabled()) {
+            OrderModel model = assembler.toModel(writeBehind.submit(order));
+            return ResponseEntity.accepted()
+                    .location(model.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                    .body(model);
+        }
+        // el generador respeta ids ya asignados, el del cliente no cuenta
+        order.setId(null);
         Order new_Order = orderRepository.save(order);
 
-        return new_Order.add(linkTo(methodOn(OrderController.class).one(new_Order.getId())).withSelfRel());
+        return ResponseEntity.ok(assembler.toModel(new_Order));
     }
 
     @DeleteMapping("/orders/{id}/cancel")
-    Order cancel(@PathVariable Long id) {
-
-        Order order = orderRepository.findById(id).orElseThrow(() -> new OrderNotFoundException(id));
-
-        if (order.getStatus() == Status.IN_PROGRESS) {
-            order.setStatus(Status.CANCELLED);
-            orderRepository.save(order);
-
-        }
-        return order;
+    ResponseEntity<OrderModel> cancel(@PathVariable Long id,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return transition(id, Status.CANCELLED, ifMatch, ifNoneMatch);
     }
 
     @PutMapping("/orders/{id}/complete")
-    Order complete(@PathVariable Long id) {
-
-        Order order = orderRepository.findById(id).orElseThrow(() -> new OrderNotFoundException(id));
+    ResponseEntity<OrderModel> complete(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return transition(id, Status.COMPLETED, ifMatch, ifNoneMatch);
+    }
 
-        if (order.getStatus() == Status.IN_PROGRESS) {
-            order.setStatus(Status.COMPLETED);
-            orderRepository.save(order);
+    // UPDATE ... WHERE id = ? AND status = 'IN_PROGRESS', sin leer antes la orden y sin carreras
+    // entre dos peticiones concurrentes; el UPDATE devuelve la fila nueva para la respuesta. Con
+    // If-Match la sentencia exige tambien una de las versiones de la cabecera. Solo si no se
+    // actualizo ninguna fila se lee la orden, para elegir entre 404, 412 o 409.
+    // If-None-Match (raro aqui) si obliga a leerla antes; la sentencia exige la version leida.
+    private ResponseEntity<OrderModel> transition(Long id, Status target, String ifMatch, String ifNoneMatch) {
+        List<Long> versions = ETags.versions(ifMatch);
+        if (ifNoneMatch != null) {
+            Order current = orderRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Order.class, "id", id.toString()));
+            checkPreconditions(current, ifMatch, ifNoneMatch);
+            versions = List.of(current.getVersion());
         }
+        Optional<Order> updated = versions == null
+                ? orderRepository.transition(id, Status.IN_PROGRESS, target)
+                : orderRepository.transition(id, Status.IN_PROGRESS, target, versions);
+        if (updated.isEmpty()) {
+            Order current = orderRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Order.class, "id", id.toString()));
+            checkPreconditions(current, ifMatch, ifNoneMatch);
+            throw new InvalidStateTransitionException(Order.class, id, current.getStatus(), target);
+        }
+        // el UPDATE por JDBC (ya confirmado) no pasa por los entity listeners ni por los de Hibernate
+        tableVersions.changed(Order.class);
+        statusCounts.moved(Status.IN_PROGRESS, target);
+        eventLog.append(OrderEvent.transition(id, target));
+
+        Order order = updated.get();
+        return ResponseEntity.ok().eTag(ETags.of(order.getVersion())).body(assembler.toModel(order));
+    }
 
-        return order;
+    private static void checkPreconditions(Order order, String ifMatch, String ifNoneMatch) {
+        if (!ETags.matches(ifMatch, order.getVersion())) {
+            throw new PreconditionFailedException(Order.class, order.getId(), ifMatch);
+        }
+        if (!ETags.matchesNone(ifNoneMatch, order.getVersion())) {
+            throw PreconditionFailedException.ifNoneMatch(Order.class, order.getId(), ifNoneMatch);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package org.dirnea.lab04.events;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.dirnea.lab04.model.Status;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * One change in the life of an order, as stored in {@link OrderEventLog}.
+ * <p>
+ * Binary form: {@code orderId (long) | timestamp (long, epoch ms) | type (byte) | status (byte)
+ * | description length (unsigned short) | description (UTF-8)}. Only {@link Type#CREATED}
+ * carries a description; descriptions that do not fit in 65535 bytes are cut.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class OrderEvent {
+
+    public enum Type {
+        CREATED,
+        TRANSITION,
+        DELETED
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final int FIXED = 8 + 8 + 1 + 1 + 2;
+    private static final int MAX_DESCRIPTION_CHARS = 0xFFFF / 4;
+    private static final byte NO_STATUS = -1;
+
+    private final long sequence;
+    private final long orderId;
+    private final long timestamp;
+    private final Type type;
+    private final Status status;
+    private final String description;
+
+    private OrderEvent(long sequence, long orderId, long timestamp, Type type, Status status, String description) {
+        this.sequence = sequence;
+        this.orderId = orderId;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.status = status;
+        this.description = description;
+    }
+
+    public static OrderEvent created(long orderId, String description, Status status) {
+        return new OrderEvent(0, orderId, System.currentTimeMillis(), Type.CREATED, status, description);
+    }
+
+    public static OrderEvent transition(long orderId, Status status) {
+        return new OrderEvent(0, orderId, System.currentTimeMillis(), Type.TRANSITION, status, null);
+    }
+
+    public static OrderEvent deleted(long orderId) {
+        return new OrderEvent(0, orderId, System.currentTimeMillis(), Type.DELETED, null, null);
+    }
+
+    /** Position in the log, 0 until the event was appended. */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public ByteBuffer encode() {
+        byte[] text = new byte[0];
+        if (description != null) {
+            // 4 bytes UTF-8 como mucho por char: cortar antes de codificar evita medir dos veces
+            String value = description.length() > MAX_DESCRIPTION_CHARS
+                    ? description.substring(0, MAX_DESCRIPTION_CHARS) : description;
+            text = value.getBytes(StandardCharsets.UTF_8);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED + text.length);
+        buffer.putLong(orderId)
+                .putLong(timestamp)
+                .put((byte) type.ordinal())
+                .put(status == null ? NO_STATUS : (byte) status.ordinal())
+                .putShort((short) text.length)
+                .put(text);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static OrderEvent decode(long sequence, ByteBuffer buffer) {
+        long orderId = buffer.getLong();
+        long timestamp = buffer.getLong();
+        Type type = TYPES[buffer.get()];
+        byte status = buffer.get();
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String description = null;
+        if (type == Type.CREATED) {
+            byte[] text = new byte[length];
+            buffer.get(text);
+            description = new String(text, StandardCharsets.UTF_8);
+        }
+        return new OrderEvent(sequence, orderId, timestamp, type, status == NO_STATUS ? null : STATUSES[status],
+                description);
+    }
+
+    // orderId sin decodificar el resto del registro, para filtrar el historial de una orden
+    static long orderId(ByteBuffer buffer) {
+        return buffer.getLong(buffer.position());
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{" + sequence + ", order " + orderId + ", " + type + ", " + status + "}";
+    }
+}
@@ -0,0 +1,130 @@
+package org.dirnea.lab04.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of every order: creations and deletions arrive from
+ * {@link org.dirnea.lab04.service.OrderStatusListener} after the commit, the bulk status
+ * transitions from the controller. {@code CUSTOMER_ORDER} keeps the current state and
+ * {@link OrderProjection} can rebuild it from here.
+ * <p>
+ * The history of one order is read through an index in memory with the address of each of its
+ * records (one long per event), so {@code GET /orders/{id}/events} reads only those records.
+ * <p>
+ * The database is in memory, so unless {@code events.replay-on-startup} is set the log of the
+ * previous run is deleted on startup; otherwise the ids of both runs would mix.
+ */
+@Component
+@Slf4j
+public class OrderEventLog {
+
+    private final SegmentLog segments;
+    private final Timer appendTimer;
+    // direcciones de los registros de cada orden, en orden; los arrays no se modifican, se reemplazan
+    private final Map<Long, long[]> addresses = new ConcurrentHashMap<>();
+
+    public OrderEventLog(@Value("${events.directory:target/order-events}") String directory,
+                         @Value("${events.segment-size:64MB}") DataSize segmentSize,
+                         @Value("${events.fsync:false}") boolean fsync,
+                         @Value("${events.replay-on-startup:false}") boolean keep,
+                         MeterRegistry registry) {
+        Path path = Paths.get(directory);
+        if (!keep) {
+            deleteSegments(path);
+        }
+        this.segments = new SegmentLog(path, Math.toIntExact(segmentSize.toBytes()), fsync);
+        this.appendTimer = Timer.builder("orders.events.append").register(registry);
+        segments.replay(1, (address, sequence, payload) -> index(OrderEvent.orderId(payload), address));
+        log.info("Order event log in '{}', last sequence {}", path.toAbsolutePath(), segments.lastSequence());
+    }
+
+    /**
+     * @return the sequence of the event in the log
+     */
+    public long append(OrderEvent event) {
+        long start = System.nanoTime();
+        try {
+            // append y lastAddress juntos: la direccion es la de este registro
+            synchronized (this) {
+                long sequence = segments.append(event.encode());
+                index(event.getOrderId(), segments.lastAddress());
+                return sequence;
+            }
+        } finally {
+            appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public long lastSequence() {
+        return segments.lastSequence();
+    }
+
+    /** Every event with a sequence of at least {@code fromSequence}, in order. */
+    public void replay(long fromSequence, Consumer<OrderEvent> consumer) {
+        segments.replay(fromSequence, (sequence, payload) -> consumer.accept(OrderEvent.decode(sequence, payload)));
+    }
+
+    /**
+     * Events of one order, oldest first.
+     */
+    public List<OrderEvent> history(long orderId) {
+        long[] found = addresses.get(orderId);
+        if (found == null) {
+            return Collections.emptyList();
+        }
+        List<OrderEvent> events = new ArrayList<>(found.length);
+        for (long address : found) {
+            segments.read(address, (sequence, payload) -> events.add(OrderEvent.decode(sequence, payload)));
+        }
+        return events;
+    }
+
+    private void index(long orderId, long address) {
+        addresses.merge(orderId, new long[]{address}, (known, added) -> {
+            long[] merged = Arrays.copyOf(known, known.length + 1);
+            merged[known.length] = address;
+            return merged;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.close();
+    }
+
+    private static void deleteSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(".log")) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not clear the order event log in " + directory, ex);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.dirnea.lab04.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.service.OrderIdAllocator;
+import org.dirnea.lab04.service.OrderStatusCounts;
+import org.dirnea.lab04.util.TableVersions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds {@code CUSTOMER_ORDER} from {@link OrderEventLog}: the log is read sequentially and
+ * applied with JDBC batches, one transaction per {@code events.replay.batch-size} events.
+ * Replaying is idempotent, a creation resets the row and the transitions after it move it
+ * again, so the same log can be applied over a table that already has part of it.
+ * <p>
+ * With {@code events.replay-on-startup} it runs at startup, before the seed data; leave
+ * {@code seed.orders} empty then, or the seed orders are created a second time.
+ */
+@Component
+@org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class OrderProjection implements ApplicationRunner {
+
+    private static final String MERGE = "MERGE INTO customer_order (id, description, status, version) KEY (id) VALUES (?, ?, ?, 0)";
+    private static final String UPDATE = "UPDATE customer_order SET status = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE = "DELETE FROM customer_order WHERE id = ?";
+
+    private final OrderEventLog eventLog;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TableVersions tableVersions;
+    private final OrderStatusCounts statusCounts;
+    private final OrderIdAllocator idAllocator;
+
+    @Value("${events.replay-on-startup:false}")
+    private boolean replayOnStartup;
+    @Value("${events.replay.batch-size:1000}")
+    private int batchSize;
+
+    public OrderProjection(OrderEventLog eventLog, JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                           EntityManagerFactory entityManagerFactory, TableVersions tableVersions,
+                           OrderStatusCounts statusCounts, OrderIdAllocator idAllocator) {
+        this.eventLog = eventLog;
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.tableVersions = tableVersions;
+        this.statusCounts = statusCounts;
+        this.idAllocator = idAllocator;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (replayOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Applies the whole log to the table. Meant for startup or maintenance: changes committed
+     * while it runs are applied too if they reach the log before the replay does. Afterwards
+     * {@link OrderIdAllocator} hands out ids past the highest one in the table.
+     *
+     * @return the number of events applied
+     */
+    public long rebuild() {
+        long start = System.nanoTime();
+        Batch batch = new Batch();
+        long[] applied = {0};
+        eventLog.replay(1, event -> {
+            batch.add(event);
+            if (batch.size == batchSize) {
+                applied[0] += flush(batch);
+            }
+        });
+        applied[0] += flush(batch);
+
+        idAllocator.advancePast(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM customer_order", Long.class));
+        // las filas se escribieron por debajo de JPA
+        entityManagerFactory.getCache().evict(Order.class);
+        tableVersions.changed(Order.class);
+        statusCounts.recount();
+        log.info("Replayed {} order events into CUSTOMER_ORDER in {} ms", applied[0],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return applied[0];
+    }
+
+    // Dentro de un bloque las altas van antes que las transiciones y las bajas al final: un id
+    // se crea una sola vez y antes de moverse, asi que el orden de las sentencias no cambia el resultado
+    private int flush(Batch batch) {
+        if (batch.size == 0) {
+            return 0;
+        }
+        transactionTemplate.execute(status -> {
+            if (!batch.merges.isEmpty()) {
+                jdbc.batchUpdate(MERGE, batch.merges);
+            }
+            if (!batch.updates.isEmpty()) {
+                jdbc.batchUpdate(UPDATE, batch.updates);
+            }
+            if (!batch.deletes.isEmpty()) {
+                jdbc.batchUpdate(DELETE, batch.deletes);
+            }
+            return null;
+        });
+        int size = batch.size;
+        batch.clear();
+        return size;
+    }
+
+    private static final class Batch {
+        private final List<Object[]> merges = new ArrayList<>();
+        private final List<Object[]> updates = new ArrayList<>();
+        private final List<Object[]> deletes = new ArrayList<>();
+        private int size;
+
+        private void add(OrderEvent event) {
+            switch (event.getType()) {
+                case CREATED:
+                    merges.add(new Object[]{event.getOrderId(), event.getDescription(), ordinal(event)});
+                    break;
+                case TRANSITION:
+                    updates.add(new Object[]{ordinal(event), event.getOrderId()});
+                    break;
+                case DELETED:
+                    deletes.add(new Object[]{event.getOrderId()});
+                    break;
+            }
+            size++;
+        }
+
+        // status es el ordinal, ver Order
+        private static Integer ordinal(OrderEvent event) {
+            return event.getStatus() == null ? null : event.getStatus().ordinal();
+        }
+
+        private void clear() {
+            merges.clear();
+            updates.clear();
+            deletes.clear();
+            size = 0;
+        }
+    }
+}
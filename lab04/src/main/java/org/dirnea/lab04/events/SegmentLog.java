@@ -0,0 +1,324 @@
+package org.dirnea.lab04.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of binary records in memory-mapped segment files of fixed size
+ * ({@code 00000000000000000000.log}, {@code 00000000000000000001.log}, ...). An append is a copy
+ * into the mapped segment, the operating system writes the pages back; with {@code fsync} every
+ * append also forces the segment to disk.
+ * <p>
+ * Record layout: {@code length (int) | crc32 (int) | sequence (long) | payload}, where length
+ * and crc cover sequence and payload. The length is written last, so a record cut short by a
+ * crash reads as the end of the log, and so does a crc mismatch; on open the log continues
+ * after the last whole record. Sequences start at 1 and have no gaps.
+ * <p>
+ * One writer at a time, any number of concurrent readers. Each segment is mapped once: the
+ * active one for writing, the sealed ones read-only, and readers share those mappings.
+ */
+public class SegmentLog implements Closeable {
+
+    static final int HEADER = 4 + 4 + 8;
+    private static final String SUFFIX = ".log";
+
+    /** Receives the records of {@link #replay}; the payload is only valid during the call. */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long sequence, ByteBuffer payload);
+    }
+
+    /** Like {@link RecordHandler}, plus the address of the record for {@link #read}. */
+    @FunctionalInterface
+    public interface AddressedRecordHandler {
+        void accept(long address, long sequence, ByteBuffer payload);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final CRC32 crc = new CRC32();
+    // vista de solo lectura de cada segmento cerrado, mapeado una sola vez
+    private final Map<Integer, ByteBuffer> sealed = new ConcurrentHashMap<>();
+    // primera secuencia de cada segmento, replay salta los que quedan antes de fromSequence
+    private final ConcurrentNavigableMap<Integer, Long> firstSequences = new ConcurrentSkipListMap<>();
+
+    private MappedByteBuffer segment;
+    private ByteBuffer segmentView;
+    private int segmentIndex;
+    private long lastSequence;
+    private long lastAddress = -1;
+    // fin de lo escrito, publicado para los lectores despues de cada append
+    private volatile End end;
+
+    public SegmentLog(Path directory, int segmentSize, boolean fsync) {
+        if (segmentSize < HEADER + 1) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            List<Integer> segments = segments();
+            segmentIndex = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            for (int index : segments.subList(0, Math.max(0, segments.size() - 1))) {
+                ByteBuffer buffer = map(index, FileChannel.MapMode.READ_ONLY);
+                sealed.put(index, buffer);
+                if (buffer.capacity() >= HEADER && buffer.getInt(0) >= 8) {
+                    firstSequences.put(index, buffer.getLong(8));
+                }
+            }
+            segment = map(segmentIndex, FileChannel.MapMode.READ_WRITE);
+            int position = scan(segment, segmentSize, (offset, sequence, payload) -> {
+                lastSequence = sequence;
+                lastAddress = address(segmentIndex, offset);
+            });
+            if (position == 0 && segmentIndex > 0 && sealed.containsKey(segmentIndex - 1)) {
+                // segmento recien creado y vacio: la ultima secuencia esta en el anterior
+                scan(sealed.get(segmentIndex - 1), segmentSize,
+                        (offset, sequence, payload) -> lastSequence = sequence);
+            }
+            if (position + 4 <= segmentSize && segment.getInt(position) != 0) {
+                // restos de un registro roto: se borran para que nada detras se lea como valido
+                for (int i = position; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+            }
+            segment.position(position);
+            firstSequences.put(segmentIndex, position == 0 ? lastSequence + 1 : segment.getLong(8));
+            segmentView = segment.asReadOnlyBuffer();
+            end = new End(segmentIndex, position, segmentView);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open the log in " + directory, ex);
+        }
+    }
+
+    /**
+     * Appends one record.
+     *
+     * @return the sequence of the record
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     */
+    public synchronized long append(ByteBuffer payload) {
+        int length = 8 + payload.remaining();
+        if (HEADER + payload.remaining() > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.remaining() + " bytes does not fit in a segment");
+        }
+        if (segment.remaining() < HEADER + payload.remaining()) {
+            roll();
+        }
+        long sequence = lastSequence + 1;
+        int start = segment.position();
+        segment.position(start + 8);
+        segment.putLong(sequence);
+        segment.put(payload.duplicate());
+        crc.reset();
+        crc.update(segment.duplicate().position(start + 8).limit(start + 8 + length));
+        segment.putInt(start + 4, (int) crc.getValue());
+        segment.putInt(start, length);
+        if (fsync) {
+            segment.force();
+        }
+        lastSequence = sequence;
+        lastAddress = address(segmentIndex, start);
+        end = new End(segmentIndex, segment.position(), segmentView);
+        return sequence;
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Address of the last record appended, for {@link #read}; -1 while the log is empty. Only
+     * meaningful to the caller that serializes its appends with this call.
+     */
+    public synchronized long lastAddress() {
+        return lastAddress;
+    }
+
+    /**
+     * Reads the single record at {@code address}.
+     *
+     * @return false if there is no record there (yet)
+     */
+    public boolean read(long address, RecordHandler handler) {
+        End limit = end;
+        int index = (int) (address >>> 32);
+        int offset = (int) address;
+        if (index > limit.segment || index == limit.segment && offset >= limit.position) {
+            return false;
+        }
+        ByteBuffer buffer = index == limit.segment ? limit.view : sealed.get(index);
+        if (buffer == null) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + 8).limit(offset + 8 + length);
+        long sequence = body.getLong();
+        handler.accept(sequence, body.slice());
+        return true;
+    }
+
+    /**
+     * Reads every record with a sequence of at least {@code fromSequence}, in order, up to the
+     * last append that finished before the call.
+     */
+    public void replay(long fromSequence, RecordHandler handler) {
+        replay(fromSequence, (address, sequence, payload) -> handler.accept(sequence, payload));
+    }
+
+    /** {@link #replay(long, RecordHandler)} with the address of every record. */
+    public void replay(long fromSequence, AddressedRecordHandler handler) {
+        End limit = end;
+        for (Map.Entry<Integer, Long> entry : firstSequences.headMap(limit.segment, true).entrySet()) {
+            int index = entry.getKey();
+            Map.Entry<Integer, Long> next = firstSequences.higherEntry(index);
+            if (next != null && next.getValue() <= fromSequence) {
+                continue;
+            }
+            ByteBuffer buffer = index == limit.segment ? limit.view : sealed.get(index);
+            if (buffer == null) {
+                continue;
+            }
+            scan(buffer, index == limit.segment ? limit.position : segmentSize, (offset, sequence, payload) -> {
+                if (sequence >= fromSequence) {
+                    handler.accept(address(index, offset), sequence, payload);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the sealed segments whose records all have a sequence lower than {@code sequence}.
+     * The active segment and the one before it are always kept.
+     *
+     * @return the number of segments deleted
+     */
+    public synchronized int truncateBefore(long sequence) {
+        int deleted = 0;
+        for (int index : new ArrayList<>(firstSequences.headMap(segmentIndex - 1).keySet())) {
+            Map.Entry<Integer, Long> next = firstSequences.higherEntry(index);
+            if (next == null || next.getValue() > sequence) {
+                break;
+            }
+            firstSequences.remove(index);
+            // el mapeo sigue valido para un lector que ya lo tenga, se libera con el GC
+            sealed.remove(index);
+            try {
+                Files.deleteIfExists(file(index));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not delete segment " + index + " in " + directory, ex);
+            }
+            deleted++;
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() {
+        segment.force();
+    }
+
+    private void roll() {
+        segment.force();
+        sealed.put(segmentIndex, segmentView);
+        try {
+            segment = map(segmentIndex + 1, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create segment " + (segmentIndex + 1) + " in " + directory, ex);
+        }
+        segmentView = segment.asReadOnlyBuffer();
+        segmentIndex++;
+        firstSequences.put(segmentIndex, lastSequence + 1);
+    }
+
+    // segmento en los 32 bits altos, posicion dentro del segmento en los bajos
+    private static long address(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    @FunctionalInterface
+    private interface Visitor {
+        void accept(int offset, long sequence, ByteBuffer payload);
+    }
+
+    // Recorre los registros enteros de buffer[0, limit) y devuelve donde termina el ultimo
+    private static int scan(ByteBuffer buffer, int limit, Visitor visitor) {
+        CRC32 check = new CRC32();
+        int position = 0;
+        while (position + HEADER <= Math.min(limit, buffer.capacity())) {
+            int length = buffer.getInt(position);
+            if (length < 8 || position + 8 + length > Math.min(limit, buffer.capacity())) {
+                break;
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.position(position + 8).limit(position + 8 + length);
+            check.reset();
+            check.update(body.duplicate());
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            long sequence = body.getLong();
+            visitor.accept(position, sequence, body.slice());
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    private MappedByteBuffer map(int index, FileChannel.MapMode mode) throws IOException {
+        Path file = file(index);
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            long size = mode == FileChannel.MapMode.READ_ONLY ? Math.min(channel.size(), segmentSize) : segmentSize;
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private Path file(int index) {
+        return directory.resolve(String.format("%020d%s", index, SUFFIX));
+    }
+
+    private List<Integer> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static final class End {
+        private final int segment;
+        private final int position;
+        // vista de solo lectura del segmento activo, la comparten todos los lectores
+        private final ByteBuffer view;
+
+        private End(int segment, int position, ByteBuffer view) {
+            this.segment = segment;
+            this.position = position;
+            this.view = view;
+        }
+    }
+}
@@ -2,30 +2,47 @@ package org.dirnea.lab04.exception;
 
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.IntStream;
-
+/**
+ * Thrown when a lookup finds nothing. A 404 is an expected outcome, not a bug, so the
+ * exception carries no stack trace and only keeps the search parameters; the message is
+ * formatted the first time {@link #getMessage()} is called, if ever.
+ */
 public class EntityNotFoundException extends RuntimeException {
 
+    private final String entity;
+    private final String[] searchParams;
+    private String message;
+
     public EntityNotFoundException(Class clazz, String... searchParamsMap) {
-        super(EntityNotFoundException.generateMessage(clazz.getSimpleName(), toMap(String.class, String.class, searchParamsMap)));
+        super(null, null, false, false);
+        if (searchParamsMap.length % 2 == 1)
+            throw new IllegalArgumentException("Invalid entries");
+        this.entity = clazz.getSimpleName();
+        this.searchParams = searchParamsMap;
     }
 
-    private static String generateMessage(String entity, Map<String, String> searchParams) {
-        return StringUtils.capitalize(entity) +
-                " was not found for parameters " +
-                searchParams;
+    public String getEntity() {
+        return entity;
     }
 
-    private static <K, V> Map<K, V> toMap(
-            Class<K> keyType, Class<V> valueType, Object... entries) {
-        if (entries.length % 2 == 1)
-            throw new IllegalArgumentException("Invalid entries");
-        return IntStream.range(0, entries.length / 2).map(i -> i * 2)
-                .collect(HashMap::new,
-                        (m, i) -> m.put(keyType.cast(entries[i]), valueType.cast(entries[i + 1])),
-                        Map::putAll);
+    // "Employee was not found for parameters {id=4}"
+    @Override
+    public String getMessage() {
+        String result = message;
+        if (result == null) {
+            StringBuilder builder = new StringBuilder(64)
+                    .append(StringUtils.capitalize(entity))
+                    .append(" was not found for parameters {");
+            for (int i = 0; i < searchParams.length; i += 2) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(searchParams[i]).append('=').append(searchParams[i + 1]);
+            }
+            result = builder.append('}').toString();
+            message = result;
+        }
+        return result;
     }
 
-}
\ No newline at end of file
+}
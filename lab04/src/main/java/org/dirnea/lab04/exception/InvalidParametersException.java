@@ -0,0 +1,12 @@
+package org.dirnea.lab04.exception;
+
+/**
+ * Thrown when the request parameters are valid one by one but not together (e.g. {@code after}
+ * and {@code before} on the same page); answered with 400.
+ */
+public class InvalidParametersException extends RuntimeException {
+
+    public InvalidParametersException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,20 @@
+package org.dirnea.lab04.exception;
+
+import org.apache.commons.lang3.StringUtils;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(Class clazz, Long id, String ifMatch) {
+        super(StringUtils.capitalize(clazz.getSimpleName()) + " " + id + " does not match If-Match " + ifMatch);
+    }
+
+    private PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    // If-None-Match en una escritura: la version actual esta en la lista (o es *)
+    public static PreconditionFailedException ifNoneMatch(Class clazz, Long id, String ifNoneMatch) {
+        return new PreconditionFailedException(StringUtils.capitalize(clazz.getSimpleName()) + " " + id
+                + " matches If-None-Match " + ifNoneMatch);
+    }
+}
@@ -1,16 +1,21 @@
 package org.dirnea.lab04.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.dirnea.lab04.apierror.ApiError;
+import org.dirnea.lab04.apierror.ApiErrorWriter;
 import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
@@ -23,13 +28,28 @@ import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @ControllerAdvice
 @Slf4j
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
+    public static final String NOT_FOUND_COUNTER = "entity.not.found";
+
+    private final MeterRegistry registry;
+    // null si api-error.prerendered=false: todos los errores pasan por Jackson
+    private final ApiErrorWriter writer;
+
+    public RestExceptionHandler(MeterRegistry registry,
+                                @Value("${api-error.prerendered:true}") boolean prerendered) {
+        this.registry = registry;
+        this.writer = prerendered ? new ApiErrorWriter() : null;
+    }
+
     /**
      * Handle MissingServletRequestParameterException. Triggered when a 'required' request parameter is missing.
      *
@@ -116,11 +136,82 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(EntityNotFoundException.class)
     protected ResponseEntity<Object> handleEntityNotFound(
             EntityNotFoundException ex) {
+        registry.counter(NOT_FOUND_COUNTER, "entity", ex.getEntity()).increment();
         ApiError apiError = new ApiError(NOT_FOUND);
+        apiError.setLazyMessage(ex::getMessage);
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles InvalidParametersException. Thrown when request parameters cannot be combined.
+     *
+     * @param ex the InvalidParametersException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(InvalidParametersException.class)
+    protected ResponseEntity<Object> handleInvalidParameters(InvalidParametersException ex) {
+        ApiError apiError = new ApiError(BAD_REQUEST);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles InvalidStateTransitionException. Thrown when an entity is not in a state that allows the requested transition.
+     *
+     * @param ex the InvalidStateTransitionException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(InvalidStateTransitionException.class)
+    protected ResponseEntity<Object> handleInvalidStateTransition(
+            InvalidStateTransitionException ex) {
+        ApiError apiError = new ApiError(CONFLICT);
         apiError.setMessage(ex.getMessage());
         return buildResponseEntity(apiError);
     }
 
+    /**
+     * Handles PreconditionFailedException. Thrown when If-Match does not match, or If-None-Match matches, the current version.
+     *
+     * @param ex the PreconditionFailedException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    protected ResponseEntity<Object> handlePreconditionFailed(
+            PreconditionFailedException ex) {
+        ApiError apiError = new ApiError(PRECONDITION_FAILED);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles ServiceBusyException. Thrown when a bounded queue has no room for the request.
+     *
+     * @param ex the ServiceBusyException
+     * @return the ApiError object, with Retry-After
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    protected ResponseEntity<Object> handleServiceBusy(ServiceBusyException ex) {
+        ApiError apiError = new ApiError(SERVICE_UNAVAILABLE);
+        apiError.setMessage(ex.getMessage());
+        ResponseEntity<Object> response = buildResponseEntity(apiError);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    /**
+     * Handles ObjectOptimisticLockingFailureException. Happens when a concurrent write changed the version first.
+     *
+     * @param ex the ObjectOptimisticLockingFailureException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    protected ResponseEntity<Object> handleOptimisticLockingFailure(
+            ObjectOptimisticLockingFailureException ex) {
+        return buildResponseEntity(new ApiError(PRECONDITION_FAILED, "Concurrent modification", ex));
+    }
+
     /**
      * Handle HttpMessageNotReadableException. Happens when request JSON is malformed.
      *
@@ -176,6 +267,7 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(javax.persistence.EntityNotFoundException.class)
     protected ResponseEntity<Object> handleEntityNotFound(javax.persistence.EntityNotFoundException ex) {
+        registry.counter(NOT_FOUND_COUNTER, "entity", "unknown").increment();
         return buildResponseEntity(new ApiError(HttpStatus.NOT_FOUND, ex));
     }
 
@@ -211,6 +303,12 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
 
     private ResponseEntity<Object> buildResponseEntity(ApiError apiError) {
+        byte[] body = writer != null ? writer.write(apiError) : null;
+        if (body != null) {
+            return ResponseEntity.status(apiError.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        }
         return new ResponseEntity<>(apiError, apiError.getStatus());
     }
 
@@ -0,0 +1,19 @@
+package org.dirnea.lab04.exception;
+
+/**
+ * Thrown when a bounded queue or pool has no room for the request; answered with 503 and a
+ * Retry-After of {@link #getRetryAfterSeconds()}.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
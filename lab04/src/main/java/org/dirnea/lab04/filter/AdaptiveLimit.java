@@ -0,0 +1,73 @@
+package org.dirnea.lab04.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit of one route, adjusted by AIMD: every request answered within
+ * {@code latencyTarget} raises the limit by {@code 1/limit} (one per "window" of requests),
+ * a slow one or a 5xx cuts it by {@code backoff}, at most once per window: the requests that
+ * were already in flight when it was cut finish without cutting it again, so a burst of slow
+ * responses costs one step and not all of them. The limit stays between {@code min} and
+ * {@code max}; the requests in flight above it are rejected. It only grows while at least half
+ * of it is in use, so a quiet route does not drift up to {@code max}.
+ */
+final class AdaptiveLimit {
+
+    private final int min;
+    private final int max;
+    private final long latencyTargetNanos;
+    private final double backoff;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double limit;
+    // respuestas que quedan de peticiones admitidas antes del ultimo recorte
+    private int unaffected;
+
+    AdaptiveLimit(int initial, int min, int max, long latencyTargetNanos, double backoff) {
+        this.min = min;
+        this.max = max;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoff = backoff;
+        this.limit = Math.max(min, Math.min(max, initial));
+    }
+
+    boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a request taken with {@link #tryAcquire()}.
+     *
+     * @param latencyNanos time the request took
+     * @param failed       whether the response was a server error
+     */
+    void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (unaffected > 0) {
+                unaffected--;
+            } else if (failed || latencyNanos > latencyTargetNanos) {
+                limit = Math.max(min, limit * backoff);
+                unaffected = inFlightBefore - 1;
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(max, limit + 1 / limit);
+            }
+        }
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
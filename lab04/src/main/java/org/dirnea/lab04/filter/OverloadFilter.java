@@ -0,0 +1,186 @@
+package org.dirnea.lab04.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dirnea.lab04.apierror.ApiError;
+import org.dirnea.lab04.apierror.ApiErrorWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds load before it reaches the controllers. Each client (remote address) has a
+ * {@link TokenBucket}; over its rate it gets a 429. At most {@code max-clients} clients get a
+ * bucket of their own, idle ones are dropped to make room, and while none is idle the new
+ * clients share one bucket. Each route ({@code GET /employees/{id}})
+ * has an {@link AdaptiveLimit} on the requests in flight; over it the request gets a 503.
+ * Both carry Retry-After and an {@link ApiError} body, and are counted in
+ * {@code http.server.rejected}. Settings under {@code overload.*} in application.properties.
+ * <p>
+ * Load tests from a single address turn it off ({@code overload.enabled=false}), or they would hit
+ * the per-client rate within a second and measure the 429s instead of the app.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class OverloadFilter extends OncePerRequestFilter {
+
+    public static final String REJECTED_COUNTER = "http.server.rejected";
+
+    // /employees/42 y /employees/43 son la misma ruta
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    // Rutas inexistentes (escaneos) comparten un solo limite a partir de aqui
+    private static final int MAX_ROUTES = 256;
+    // Con el mapa lleno se buscan clientes inactivos como mucho una vez por segundo
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final double ratePerSecond;
+    private final int burst;
+    private final int maxClients;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoff;
+    private final List<String> excludedPaths;
+    private final MeterRegistry registry;
+    private final ApiErrorWriter writer = new ApiErrorWriter();
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // entradas de buckets, reservadas antes de insertar para que el limite sea exacto
+    private final AtomicInteger clients = new AtomicInteger();
+    private final AtomicLong sweptAt = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL);
+    // compartido por los clientes que no caben en buckets
+    private final TokenBucket overflow;
+    private final Map<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+    public OverloadFilter(@Value("${overload.enabled:true}") boolean enabled,
+                          @Value("${overload.rate.per-second:100}") double ratePerSecond,
+                          @Value("${overload.rate.burst:200}") int burst,
+                          @Value("${overload.rate.max-clients:10000}") int maxClients,
+                          @Value("${overload.concurrency.initial:20}") int initialLimit,
+                          @Value("${overload.concurrency.min:4}") int minLimit,
+                          @Value("${overload.concurrency.max:150}") int maxLimit,
+                          @Value("${overload.concurrency.latency-target-ms:250}") long latencyTargetMillis,
+                          @Value("${overload.concurrency.backoff:0.9}") double backoff,
+                          @Value("${overload.excluded-paths:/actuator/**}") List<String> excludedPaths,
+                          MeterRegistry registry) {
+        this.enabled = enabled;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxClients = maxClients;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.backoff = backoff;
+        this.excludedPaths = excludedPaths;
+        this.registry = registry;
+        this.overflow = new TokenBucket(ratePerSecond, burst, System.nanoTime());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return excludedPaths.stream().anyMatch(pattern -> matcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        long wait = bucket(request.getRemoteAddr(), now).tryAcquire(now);
+        if (wait > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "rate", "Rate limit exceeded", wait);
+            return;
+        }
+        String route = request.getMethod() + " " + ID_SEGMENT.matcher(request.getServletPath()).replaceAll("/{id}");
+        if (limits.size() >= MAX_ROUTES && !limits.containsKey(route)) {
+            route = "other";
+        }
+        AdaptiveLimit limit = limits.computeIfAbsent(route,
+                key -> new AdaptiveLimit(initialLimit, minLimit, maxLimit, latencyTargetNanos, backoff));
+        if (!limit.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "concurrency", "Too many concurrent requests for " + route,
+                    TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            limit.release(System.nanoTime() - now, failed);
+        }
+    }
+
+    private TokenBucket bucket(String client, long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clients.get() >= maxClients) {
+            sweep(now);
+        }
+        if (clients.incrementAndGet() > maxClients) {
+            // un escaneo con muchas IPs no hace crecer el mapa: los nuevos comparten un bucket
+            clients.decrementAndGet();
+            return overflow;
+        }
+        TokenBucket created = new TokenBucket(ratePerSecond, burst, now);
+        bucket = buckets.putIfAbsent(client, created);
+        if (bucket != null) {
+            clients.decrementAndGet();
+            return bucket;
+        }
+        return created;
+    }
+
+    private void sweep(long now) {
+        long last = sweptAt.get();
+        if (now - last < SWEEP_INTERVAL || !sweptAt.compareAndSet(last, now)) {
+            return;
+        }
+        for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext(); ) {
+            if (it.next().isIdle(now)) {
+                it.remove();
+                clients.decrementAndGet();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String reason, String message, long waitNanos)
+            throws IOException {
+        registry.counter(REJECTED_COUNTER, "reason", reason).increment();
+        ApiError apiError = new ApiError(status);
+        apiError.setMessage(message);
+        byte[] body = writer.write(apiError);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,72 @@
+package org.dirnea.lab04.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every call to a Spring Data repository ({@code repository.invocations}) and to a
+ * representation model assembler ({@code hateoas.assembler}), tagged by bean and method.
+ * A page that suddenly makes one {@code findById} per row shows up as a jump in the
+ * count of that timer, next to {@code http.server.requests} of the endpoint.
+ */
+@Aspect
+@Component
+public class TimingAspect {
+
+    public static final String REPOSITORY_TIMER = "repository.invocations";
+    public static final String ASSEMBLER_TIMER = "hateoas.assembler";
+
+    private final MeterRegistry registry;
+    // nombre de la interfaz del repositorio por clase del proxy, se resuelve una sola vez
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public TimingAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass(),
+                type -> repositoryName(joinPoint.getTarget()));
+        return time(REPOSITORY_TIMER, "repository", repository, joinPoint);
+    }
+
+    @Around("execution(* org.dirnea.lab04.assembler..*.*(..))")
+    public Object timeAssembler(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(ASSEMBLER_TIMER, "assembler", joinPoint.getSignature().getDeclaringType().getSimpleName(), joinPoint);
+    }
+
+    private Object time(String name, String beanTag, String bean, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag(beanTag, bean)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+
+    private static String repositoryName(Object target) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(target)) {
+            if (type.getPackage().getName().startsWith("org.dirnea.")) {
+                return type.getSimpleName();
+            }
+        }
+        return target.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,25 @@
+package org.dirnea.lab04.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Resultado por elemento de una carga masiva, index es la posicion en el arreglo o la linea NDJSON
+@Data
+@AllArgsConstructor
+public class BatchItemResult {
+
+    public enum Outcome {CREATED, FAILED}
+
+    private final int index;
+    private final Long id;
+    private final Outcome outcome;
+    private final String error;
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, id, Outcome.CREATED, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, null, Outcome.FAILED, error);
+    }
+}
@@ -4,19 +4,43 @@ package org.dirnea.lab04.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
-import org.springframework.hateoas.RepresentationModel;
-
+import org.dirnea.lab04.search.EmployeeIndexListener;
+import org.dirnea.lab04.util.PooledSequenceGenerator;
+import org.dirnea.lab04.util.TableVersionListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Data
 @Entity
-public class Employee extends RepresentationModel<Employee> {
-
-    private @Id @GeneratedValue Long id;
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({TableVersionListener.class, EmployeeIndexListener.class})
+// GET /employees?role=&namePrefix= (keyset por id dentro del filtro)
+@Table(indexes = {
+        @Index(name = "idx_employee_role_id", columnList = "role, id"),
+        @Index(name = "idx_employee_name", columnList = "name")})
+public class Employee {
+
+    @Id
+    @GeneratedValue(generator = "employee_seq")
+    @GenericGenerator(name = "employee_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "employee_seq"))
+    private Long id;
     private String name;
     private String role;
+    private @Version Long version;
 
     //{"name": "Luis Perez","role":"student"} ---> json original
     @JsonCreator //{"nombre": "Luis Perez", "cargo": "student"} ---> json final
@@ -0,0 +1,18 @@
+package org.dirnea.lab04.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
+
+// Resultado de GET /employees/search, score mayor = mejor coincidencia
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Relation(collectionRelation = "employees", itemRelation = "employee")
+public class EmployeeHitModel extends RepresentationModel<EmployeeHitModel> {
+
+    private final Long id;
+    private final String name;
+    private final String role;
+    private final double score;
+}
@@ -0,0 +1,17 @@
+package org.dirnea.lab04.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
+
+// Representacion REST del empleado, los links viven aqui y no en la entidad administrada por JPA
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Relation(collectionRelation = "employees", itemRelation = "employee")
+public class EmployeeModel extends RepresentationModel<EmployeeModel> {
+
+    private final Long id;
+    private final String name;
+    private final String role;
+}
@@ -1,22 +1,50 @@
-package org.dirnea.lab03.model;
+package org.dirnea.lab04.model;
 
 import lombok.Data;
-import org.springframework.hateoas.RepresentationModel;
-
+import org.dirnea.lab04.service.OrderIdListener;
+import org.dirnea.lab04.util.PooledSequenceGenerator;
+import org.dirnea.lab04.util.TableVersionListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Version;
 import javax.persistence.Table;
 
 @Entity
 @Data
-@Table(name = "CUSTOMER_ORDER")
-public class Order extends RepresentationModel<Order> {
-
-  private @Id @GeneratedValue Long id;
+// GET /orders?status= (keyset por id dentro del estado)
+@Table(name = "CUSTOMER_ORDER", indexes = @Index(name = "idx_order_status_id", columnList = "status, id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({OrderIdListener.class, TableVersionListener.class})
+public class Order {
+
+  @Id
+  @GeneratedValue(generator = "order_seq")
+  @GenericGenerator(name = "order_seq", strategy = PooledSequenceGenerator.STRATEGY,
+          parameters = {@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "order_seq"),
+                  // el id ya viene de OrderIdAllocator (OrderIdListener, modo write-behind de POST /orders)
+                  @Parameter(name = PooledSequenceGenerator.PREASSIGNED, value = "true")})
+  private Long id;
 
   private String description;
+  // ordinal en un SMALLINT: no cambiar el orden de Status sin migrar los datos
+  @Enumerated(EnumType.ORDINAL)
+  @Column(columnDefinition = "SMALLINT")
   private Status status;
+  private @Version Long version;
 
   Order() {}
 
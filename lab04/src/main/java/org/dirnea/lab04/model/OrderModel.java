@@ -0,0 +1,17 @@
+package org.dirnea.lab04.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
+
+// Representacion REST de la orden, los links viven aqui y no en la entidad administrada por JPA
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Relation(collectionRelation = "orders", itemRelation = "order")
+public class OrderModel extends RepresentationModel<OrderModel> {
+
+    private final Long id;
+    private final String description;
+    private final Status status;
+}
@@ -1,4 +1,4 @@
-package org.dirnea.lab03.model;
+package org.dirnea.lab04.model;
 
 public enum Status {
 
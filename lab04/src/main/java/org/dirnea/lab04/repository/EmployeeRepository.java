@@ -1,7 +1,51 @@
 package org.dirnea.lab04.repository;
 
 import org.dirnea.lab04.model.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    // Forward-only cursor over the whole table, used to build the search index at startup.
+    // Must be consumed inside a transaction and closed afterwards.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")})
+    @Query("select e from Employee e order by e.id")
+    Stream<Employee> streamAll();
+
+    // Keyset pagination: the primary key index is used to seek directly to the page,
+    // no OFFSET and no full scan no matter how deep the client is reading.
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    List<Employee> findByIdLessThanOrderByIdDesc(Long before, Pageable pageable);
+
+    // Same pages filtered by role, served by the (role, id) index: seek to the role and the
+    // id, then read the page in order, without sorting or scanning the other roles.
+    List<Employee> findByRoleAndIdGreaterThanOrderByIdAsc(String role, Long after, Pageable pageable);
+
+    List<Employee> findByRoleAndIdLessThanOrderByIdDesc(String role, Long before, Pageable pageable);
+
+    // Filtered by name prefix (LIKE 'prefix%', wildcards in the prefix are escaped), the name
+    // index narrows the rows to the matching range and only those are sorted by id.
+    List<Employee> findByNameStartingWithAndIdGreaterThanOrderByIdAsc(String namePrefix, Long after, Pageable pageable);
+
+    List<Employee> findByNameStartingWithAndIdLessThanOrderByIdDesc(String namePrefix, Long before, Pageable pageable);
+
+    List<Employee> findByRoleAndNameStartingWithAndIdGreaterThanOrderByIdAsc(String role, String namePrefix, Long after,
+                                                                             Pageable pageable);
+
+    List<Employee> findByRoleAndNameStartingWithAndIdLessThanOrderByIdDesc(String role, String namePrefix, Long before,
+                                                                           Pageable pageable);
 }
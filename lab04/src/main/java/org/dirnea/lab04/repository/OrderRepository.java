@@ -1,7 +1,47 @@
-package org.dirnea.lab03.repository;
+package org.dirnea.lab04.repository;
 
-import org.dirnea.lab03.model.Order;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
-}
\ No newline at end of file
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderTransitions {
+
+    // Forward-only cursor over the whole table, rows are pulled from the driver
+    // 500 at a time instead of materialising the full result list.
+    // Must be consumed inside a transaction and closed afterwards.
+    // CacheMode.IGNORE: a full read would fill the Order region and push out the hot entries.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select o from Order o order by o.id")
+    Stream<Order> streamAll();
+
+    // GET /orders without paging reads the whole table too, same reason
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"))
+    List<Order> findAll();
+
+    // Keyset pagination over the primary key, optionally within one status: the (status, id)
+    // index seeks to the status and the id, so the cost of a page does not grow with the table.
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    List<Order> findByIdLessThanOrderByIdDesc(Long before, Pageable pageable);
+
+    List<Order> findByStatusAndIdGreaterThanOrderByIdAsc(Status status, Long after, Pageable pageable);
+
+    List<Order> findByStatusAndIdLessThanOrderByIdDesc(Status status, Long before, Pageable pageable);
+}
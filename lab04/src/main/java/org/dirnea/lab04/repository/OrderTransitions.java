@@ -0,0 +1,21 @@
+package org.dirnea.lab04.repository;
+
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-statement state transitions of {@code Order}, mixed into {@link OrderRepository}.
+ * The row only changes while it is still in the expected state; the UPDATE returns the row as it
+ * left it (detached), or nothing when the transition did not apply. Both variants bump the version
+ * themselves.
+ */
+public interface OrderTransitions {
+
+    Optional<Order> transition(Long id, Status expected, Status target);
+
+    // Same transition guarded by If-Match: also requires the row to have one of the given versions.
+    Optional<Order> transition(Long id, Status expected, Status target, List<Long> versions);
+}
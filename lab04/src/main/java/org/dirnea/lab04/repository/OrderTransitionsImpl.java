@@ -0,0 +1,99 @@
+package org.dirnea.lab04.repository;
+
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A JPQL bulk UPDATE makes Hibernate evict the whole {@code Order} region of the second-level
+ * cache, on every call. The UPDATE goes through JDBC instead, in the same transaction, and only
+ * the entry of the order it touches is soft-locked through the region's {@link EntityDataAccess},
+ * as Hibernate does for an entity update: until the transaction completes no reader can put the
+ * old row back, and READ_WRITE keeps rejecting loads that started before the unlock. The UPDATE
+ * is read through an H2 {@code FINAL TABLE} so the caller gets the new row from the same statement.
+ */
+class OrderTransitionsImpl implements OrderTransitions {
+
+    // status es el ordinal, ver Order
+    private static final String UPDATE = "UPDATE customer_order SET status = ?, version = version + 1 "
+            + "WHERE id = ? AND status = ?";
+    // la fila tal como la deja el UPDATE, en la misma sentencia
+    private static final String RETURNING = "SELECT id, description, status, version FROM FINAL TABLE (%s)";
+
+    private static final RowMapper<Order> ROW = (rs, rowNum) -> {
+        Order order = new Order(rs.getString("description"), Status.values()[rs.getInt("status")]);
+        order.setId(rs.getLong("id"));
+        order.setVersion(rs.getLong("version"));
+        return order;
+    };
+
+    private final JdbcTemplate jdbc;
+    private final EntityManager entityManager;
+
+    OrderTransitionsImpl(JdbcTemplate jdbc, EntityManager entityManager) {
+        this.jdbc = jdbc;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public Optional<Order> transition(Long id, Status expected, Status target) {
+        entityManager.flush();
+        lockCacheEntry(id);
+        return detaching(jdbc.query(String.format(RETURNING, UPDATE), ROW, target.ordinal(), id, expected.ordinal()));
+    }
+
+    @Override
+    @Transactional
+    public Optional<Order> transition(Long id, Status expected, Status target, List<Long> versions) {
+        if (versions.isEmpty()) {
+            return Optional.empty();
+        }
+        entityManager.flush();
+        lockCacheEntry(id);
+        List<Object> args = new ArrayList<>(List.of(target.ordinal(), id, expected.ordinal()));
+        args.addAll(versions);
+        String versionIn = " AND version IN (" + String.join(", ", Collections.nCopies(versions.size(), "?")) + ")";
+        return detaching(jdbc.query(String.format(RETURNING, UPDATE + versionIn), ROW, args.toArray()));
+    }
+
+    private void lockCacheEntry(Long id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Order.class);
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        Object key = cache.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+        SoftLock lock = cache.lockItem(session, key, null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.unlockItem(session, key, lock);
+            }
+        });
+    }
+
+    private Optional<Order> detaching(List<Order> updated) {
+        if (updated.isEmpty()) {
+            return Optional.empty();
+        }
+        // la instancia cargada antes (open-in-view) ya no refleja la fila
+        entityManager.clear();
+        return Optional.of(updated.get(0));
+    }
+}
@@ -0,0 +1,422 @@
+package org.dirnea.lab04.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of the words of {@code Employee.name} and {@code Employee.role}.
+ * Every word of the query must match a word of the employee, exactly, as a prefix or within
+ * one or two typos; the score adds up how good each match is, weighted by how rare the word
+ * is (idf). Results carry name and role, the database is not read.
+ * <p>
+ * An employee keeps at most {@link #MAX_TERMS} words of at most {@link #MAX_TERM_LENGTH}
+ * characters, so the memory per employee is bounded; the estimate is published as the
+ * {@code search.index.memory} gauge (bytes) next to {@code search.index.employees} and
+ * {@code search.index.terms}.
+ */
+@Component
+public class EmployeeIndex {
+
+    static final int MAX_TERMS = 16;
+    static final int MAX_TERM_LENGTH = 32;
+    // Un prefijo como "a" no debe expandirse a todo el vocabulario
+    private static final int MAX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.75;
+    private static final double ONE_TYPO = 0.5;
+    private static final double TWO_TYPOS = 0.25;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // "Instructor" y "Student" se guardan una sola vez
+    private final Map<String, String> roles = new HashMap<>();
+    private long documentBytes;
+
+    public EmployeeIndex(MeterRegistry registry) {
+        Gauge.builder("search.index.employees", this, EmployeeIndex::size).register(registry);
+        Gauge.builder("search.index.terms", this, index -> index.read(index.terms::size)).register(registry);
+        Gauge.builder("search.index.memory", this, EmployeeIndex::estimatedBytes).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Adds the employee or replaces what was indexed for its id.
+     */
+    public void put(long id, String name, String role) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            String canonicalRole = role == null ? null : roles.computeIfAbsent(role, key -> key);
+            Document document = new Document(name, canonicalRole);
+            for (String term : document.terms()) {
+                terms.computeIfAbsent(term, key -> new Postings()).add(id);
+            }
+            documents.put(id, document);
+            documentBytes += document.bytes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            roles.clear();
+            documentBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the best {@code limit} employees for {@code query}, best first; ties by id
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokens(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            int total = documents.size();
+            List<List<Expansion>> expansions = new ArrayList<>(words.size());
+            // idf de la palabra, no del termino expandido: un prefijo raro no gana a la palabra exacta
+            Map<List<Expansion>, Double> idfs = new IdentityHashMap<>();
+            for (String word : words) {
+                List<Expansion> expansion = expand(word);
+                if (expansion.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                expansions.add(expansion);
+                idfs.put(expansion, idf(frequency(expansion), total));
+            }
+            // Se recorren los ids de la palabra mas rara, las demas solo se consultan
+            expansions.sort((a, b) -> Long.compare(frequency(a), frequency(b)));
+            if (expansions.size() == 1 && expansions.get(0).size() == 1) {
+                // Una palabra con un solo termino: todos empatan, ganan los ids mas bajos
+                return first(expansions.get(0).get(0), idfs.get(expansions.get(0)), limit);
+            }
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+            for (long id : candidates(expansions.get(0))) {
+                double score = 0;
+                for (List<Expansion> expansion : expansions) {
+                    double wordScore = score(expansion, id) * idfs.get(expansion);
+                    if (wordScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += wordScore;
+                }
+                if (score > 0 && (best.size() < limit || score > best.peek().score)) {
+                    Document document = documents.get(id);
+                    best.add(new Hit(id, document.name, document.role, score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(Hit.WORST_FIRST.reversed());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return read(documents::size);
+    }
+
+    /**
+     * Rough size of the index in bytes: postings arrays, vocabulary and stored documents,
+     * with the usual 64-bit JVM object headers.
+     */
+    public long estimatedBytes() {
+        return read(() -> {
+            long bytes = documentBytes + documents.size() * 48L;
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                bytes += 40 + 40 + entry.getKey().length() + entry.getValue().bytes();
+            }
+            return bytes;
+        });
+    }
+
+    private void removeDocument(long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        documentBytes -= previous.bytes();
+        for (String term : previous.terms()) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.size() == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    private List<Expansion> expand(String word) {
+        List<Expansion> expansions = new ArrayList<>();
+        Postings exact = terms.get(word);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, EXACT));
+        }
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            for (Map.Entry<String, Postings> entry : terms.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.add(new Expansion(entry.getValue(), PREFIX));
+            }
+        }
+        // Las erratas solo se buscan si la palabra no aparece tal cual ni como prefijo, y nunca
+        // en numeros: el vocabulario de una letra se recorre entero
+        int maxTypos = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        if (maxTypos > 0 && expansions.isEmpty() && Character.isLetter(word.charAt(0))) {
+            // Solo terminos con la misma primera letra: el vocabulario no se recorre entero
+            String first = word.substring(0, 1);
+            for (Map.Entry<String, Postings> entry : terms.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                String term = entry.getKey();
+                if (term.startsWith(word) || Math.abs(term.length() - word.length()) > maxTypos) {
+                    continue;
+                }
+                int distance = distance(word, term, maxTypos);
+                if (distance > 0 && distance <= maxTypos) {
+                    double weight = distance == 1 ? ONE_TYPO : TWO_TYPOS;
+                    expansions.add(new Expansion(entry.getValue(), weight));
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private List<Hit> first(Expansion expansion, double idf, int limit) {
+        List<Hit> hits = new ArrayList<>(Math.min(limit, expansion.postings.size()));
+        for (int i = 0; i < expansion.postings.size() && hits.size() < limit; i++) {
+            long id = expansion.postings.get(i);
+            Document document = documents.get(id);
+            hits.add(new Hit(id, document.name, document.role, expansion.weight * idf));
+        }
+        return hits;
+    }
+
+    private static long[] candidates(List<Expansion> expansions) {
+        if (expansions.size() == 1) {
+            Postings postings = expansions.get(0).postings;
+            long[] ids = new long[postings.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = postings.get(i);
+            }
+            return ids;
+        }
+        long[] ids = new long[(int) frequency(expansions)];
+        int size = 0;
+        for (Expansion expansion : expansions) {
+            for (int i = 0; i < expansion.postings.size(); i++) {
+                ids[size++] = expansion.postings.get(i);
+            }
+        }
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+
+    private static double score(List<Expansion> expansions, long id) {
+        double best = 0;
+        for (Expansion expansion : expansions) {
+            if (expansion.weight > best && expansion.postings.contains(id)) {
+                best = expansion.weight;
+            }
+        }
+        return best;
+    }
+
+    private static long frequency(List<Expansion> expansions) {
+        long frequency = 0;
+        for (Expansion expansion : expansions) {
+            frequency += expansion.postings.size();
+        }
+        return frequency;
+    }
+
+    private static double idf(long frequency, int total) {
+        return Math.log(1 + (double) total / frequency);
+    }
+
+    // Levenshtein acotado: deja de calcular cuando la fila entera supera max
+    static int distance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /** Lower case words without accents: "José Pérez-Gil" is [jose, perez, gil]. */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Document {
+        private final String name;
+        private final String role;
+
+        private Document(String name, String role) {
+            this.name = name;
+            this.role = role;
+        }
+
+        // Los terminos no se guardan, se vuelven a calcular al borrar o reemplazar
+        Set<String> terms() {
+            Set<String> terms = new LinkedHashSet<>();
+            for (String token : tokens(name)) {
+                if (terms.size() == MAX_TERMS) {
+                    return terms;
+                }
+                terms.add(token);
+            }
+            for (String token : tokens(role)) {
+                if (terms.size() == MAX_TERMS) {
+                    return terms;
+                }
+                terms.add(token);
+            }
+            return terms;
+        }
+
+        // el rol es compartido, solo cuenta el nombre
+        long bytes() {
+            return name == null ? 0 : 40 + 2L * name.length();
+        }
+    }
+
+    private static final class Expansion {
+        private final Postings postings;
+        private final double weight;
+
+        private Expansion(Postings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * One search result.
+     */
+    public static final class Hit {
+        static final Comparator<Hit> WORST_FIRST = Comparator
+                .comparingDouble((Hit hit) -> hit.score)
+                .thenComparing((Hit hit) -> hit.id, Comparator.reverseOrder());
+
+        private final long id;
+        private final String name;
+        private final String role;
+        private final double score;
+
+        Hit(long id, String name, String role, double score) {
+            this.id = id;
+            this.name = name;
+            this.role = role;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
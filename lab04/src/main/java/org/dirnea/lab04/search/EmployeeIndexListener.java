@@ -0,0 +1,50 @@
+package org.dirnea.lab04.search;
+
+import org.dirnea.lab04.model.Employee;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Keeps {@link EmployeeIndex} in step with the employee table. Changes reach the index after
+ * the commit, a rolled back save never shows up in the search results.
+ */
+public class EmployeeIndexListener {
+
+    private final EmployeeIndex index;
+
+    public EmployeeIndexListener(EmployeeIndex index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void saved(Employee employee) {
+        long id = employee.getId();
+        String name = employee.getName();
+        String role = employee.getRole();
+        afterCommit(() -> index.put(id, name, role));
+    }
+
+    @PostRemove
+    void removed(Employee employee) {
+        long id = employee.getId();
+        afterCommit(() -> index.remove(id));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
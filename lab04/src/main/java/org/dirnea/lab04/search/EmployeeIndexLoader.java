@@ -0,0 +1,63 @@
+package org.dirnea.lab04.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.repository.EmployeeRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Fills {@link EmployeeIndex} with the employees already in the database when the application
+ * starts; from then on {@link EmployeeIndexListener} keeps it current.
+ */
+@Component
+@Slf4j
+public class EmployeeIndexLoader implements ApplicationRunner {
+
+    private final EmployeeRepository repository;
+    private final EmployeeIndex index;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public EmployeeIndexLoader(EmployeeRepository repository, EmployeeIndex index, EntityManager entityManager,
+                               PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.index = index;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Indexes every employee again, e.g. after rows were written around JPA.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        index.clear();
+        transactionTemplate.execute(status -> {
+            try (Stream<Employee> employees = repository.streamAll()) {
+                for (Iterator<Employee> it = employees.iterator(); it.hasNext(); ) {
+                    Employee employee = it.next();
+                    index.put(employee.getId(), employee.getName(), employee.getRole());
+                    entityManager.detach(employee);
+                }
+            }
+            return null;
+        });
+        log.info("Indexed {} employees for search in {} ms ({} bytes)", index.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), index.estimatedBytes());
+    }
+}
@@ -0,0 +1,111 @@
+package org.dirnea.lab04.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import lombok.extern.slf4j.Slf4j;
+import org.dirnea.lab04.model.BatchItemResult;
+import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists a stream of employees in chunks of {@code employees.batch.chunk-size}, one transaction
+ * per chunk. Together with the pooled sequence of {@link Employee} and
+ * {@code hibernate.jdbc.batch_size} every chunk goes to the database as a handful of JDBC batches.
+ * When a chunk fails it is replayed item by item so the caller gets a result for every element.
+ * <p>
+ * Create-only: an {@code id} or {@code version} in the input is ignored, every element becomes a new
+ * employee in both paths.
+ */
+@Service
+@Slf4j
+public class EmployeeBatchService {
+
+    private final EmployeeRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public EmployeeBatchService(EmployeeRepository repository, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${employees.batch.chunk-size:1000}") int chunkSize) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BatchItemResult> saveAll(MappingIterator<Employee> employees) {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Employee> chunk = new ArrayList<>(chunkSize);
+        // posicion de cada elemento del chunk en la entrada, los que no se leyeron no entran
+        List<Integer> indices = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (true) {
+            Employee employee;
+            try {
+                if (!employees.hasNextValue()) {
+                    break;
+                }
+                employee = employees.nextValue();
+            } catch (JsonParseException ex) {
+                // JSON mal formado, no hay forma de encontrar el siguiente elemento
+                results.add(BatchItemResult.failed(index, ex.getOriginalMessage()));
+                break;
+            } catch (IOException ex) {
+                results.add(BatchItemResult.failed(index++, ex.getMessage()));
+                continue;
+            }
+            // solo altas: sin id ni version saveAll hace persist, nunca merge de una fila existente
+            employee.setId(null);
+            employee.setVersion(null);
+            chunk.add(employee);
+            indices.add(index++);
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, indices, results);
+                chunk.clear();
+                indices.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, indices, results);
+        }
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return results;
+    }
+
+    private void saveChunk(List<Employee> chunk, List<Integer> indices, List<BatchItemResult> results) {
+        try {
+            List<Employee> saved = transactionTemplate.execute(status -> {
+                List<Employee> entities = repository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+                return entities;
+            });
+            for (int i = 0; i < saved.size(); i++) {
+                results.add(BatchItemResult.created(indices.get(i), saved.get(i).getId()));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Batch of {} employees starting at {} failed, retrying one by one: {}", chunk.size(), indices.get(0), ex.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                Employee employee = chunk.get(i);
+                try {
+                    // copia limpia, el intento anterior ya le asigno id y version
+                    Employee saved = transactionTemplate.execute(status ->
+                            repository.save(new Employee(employee.getName(), employee.getRole())));
+                    results.add(BatchItemResult.created(indices.get(i), saved.getId()));
+                } catch (RuntimeException itemEx) {
+                    results.add(BatchItemResult.failed(indices.get(i), itemEx.getMessage()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.dirnea.lab04.service;
+
+import org.dirnea.lab04.util.PooledSequenceGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out every order id, before the row is inserted: {@link OrderIdListener} takes one for
+ * each new {@code Order} and the write-behind mode of {@code POST /orders} takes one before
+ * queueing. One {@code NEXT VALUE} of {@code order_seq} reserves a block of
+ * {@code dirnea.id.allocation_size} ids, the same as Hibernate's pooled-lo optimizer, but the
+ * block lives here only, so {@link #advancePast} knows every id reserved in memory.
+ */
+@Component
+public class OrderIdAllocator {
+
+    private static final String NEXT_VALUE = "SELECT NEXT VALUE FOR order_seq";
+
+    private final JdbcTemplate jdbc;
+    private final int blockSize;
+
+    private long next;
+    private long limit;
+
+    public OrderIdAllocator(JdbcTemplate jdbc,
+                            @Value("${spring.jpa.properties." + PooledSequenceGenerator.ALLOCATION_SIZE + ":"
+                                    + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int blockSize) {
+        this.jdbc = jdbc;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized long next() {
+        if (next == limit) {
+            next = jdbc.queryForObject(NEXT_VALUE, Long.class);
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+
+    /**
+     * Makes sure no id up to {@code maxId} is handed out again, after rows were written with ids
+     * that did not come from here (a replay, a recovery): the rest of the block in memory is
+     * dropped if it overlaps them, and {@code order_seq} is moved past {@code maxId} and past the
+     * block that is kept.
+     */
+    public synchronized void advancePast(long maxId) {
+        if (next <= maxId) {
+            next = limit;
+        }
+        long reserved = Math.max(maxId, limit - 1);
+        long value = jdbc.queryForObject(NEXT_VALUE, Long.class);
+        if (value <= reserved) {
+            jdbc.execute("ALTER SEQUENCE order_seq RESTART WITH " + (reserved + 1));
+        } else if (next == limit) {
+            // el bloque recien reservado se aprovecha
+            next = value;
+            limit = value + blockSize;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.dirnea.lab04.service;
+
+import org.dirnea.lab04.model.Order;
+
+import javax.persistence.PrePersist;
+
+/**
+ * JPA entity listener that gives a new {@link Order} its id from {@link OrderIdAllocator}.
+ * Hibernate calls it before the id generator, which then keeps the id (see
+ * {@code PooledSequenceGenerator.PREASSIGNED}), so Hibernate never holds a block of
+ * {@code order_seq} of its own. Created by Spring like {@code TableVersionListener}.
+ */
+public class OrderIdListener {
+
+    private final OrderIdAllocator allocator;
+
+    public OrderIdListener(OrderIdAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @PrePersist
+    void assignId(Order order) {
+        if (order.getId() == null) {
+            order.setId(allocator.next());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.dirnea.lab04.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.dirnea.lab04.model.Status;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Number of orders per {@link Status}, kept in memory so {@code GET /orders/stats} never runs a
+ * {@code COUNT(*)}. Counted once at startup, before the seed data is loaded, and then moved by
+ * {@link OrderStatusListener} after each commit and by the bulk transitions of the controller.
+ * Also published as the {@code orders.status} gauge, tagged by status.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class OrderStatusCounts implements ApplicationRunner {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final JdbcTemplate jdbc;
+    private final AtomicLongArray counts = new AtomicLongArray(STATUSES.length);
+
+    public OrderStatusCounts(JdbcTemplate jdbc, MeterRegistry registry) {
+        this.jdbc = jdbc;
+        for (Status status : STATUSES) {
+            Gauge.builder("orders.status", counts, values -> values.get(status.ordinal()))
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        recount();
+    }
+
+    public void added(Status status) {
+        if (status != null) {
+            counts.incrementAndGet(status.ordinal());
+        }
+    }
+
+    public void removed(Status status) {
+        if (status != null) {
+            counts.decrementAndGet(status.ordinal());
+        }
+    }
+
+    public void moved(Status from, Status to) {
+        if (from != to) {
+            removed(from);
+            added(to);
+        }
+    }
+
+    public Map<Status, Long> snapshot() {
+        Map<Status, Long> snapshot = new EnumMap<>(Status.class);
+        for (Status status : STATUSES) {
+            snapshot.put(status, counts.get(status.ordinal()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Counts the table again. Only needed at startup or after rows were written around JPA;
+     * changes committed while it runs may be lost.
+     */
+    public void recount() {
+        long[] fresh = new long[STATUSES.length];
+        // status es el ordinal, ver Order
+        jdbc.query("SELECT status, COUNT(*) FROM customer_order WHERE status IS NOT NULL GROUP BY status",
+                row -> {
+                    fresh[row.getInt(1)] = row.getLong(2);
+                });
+        for (int i = 0; i < fresh.length; i++) {
+            counts.set(i, fresh[i]);
+        }
+        log.info("Orders per status: {}", snapshot());
+    }
+}
@@ -0,0 +1,127 @@
+package org.dirnea.lab04.service;
+
+import org.dirnea.lab04.events.OrderEvent;
+import org.dirnea.lab04.events.OrderEventLog;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Moves {@link OrderStatusCounts} with every committed insert, update and delete of an
+ * {@link Order} and appends the change to the {@link OrderEventLog}. A Hibernate post-commit listener rather than a JPA entity listener because an
+ * update has to know the status the row had before, which only Hibernate's event carries.
+ * Registered through {@code hibernate.integrator_provider}.
+ */
+@Component
+public class OrderStatusListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener, HibernatePropertiesCustomizer {
+
+    private static final String STATUS = "status";
+    private static final String DESCRIPTION = "description";
+
+    private final OrderStatusCounts counts;
+    private final OrderEventLog eventLog;
+
+    public OrderStatusListener(OrderStatusCounts counts, OrderEventLog eventLog) {
+        this.counts = counts;
+        this.eventLog = eventLog;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> Collections.singletonList(new Integrator() {
+                    @Override
+                    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                          SessionFactoryServiceRegistry serviceRegistry) {
+                        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                        registry.appendListeners(EventType.POST_COMMIT_INSERT, OrderStatusListener.this);
+                        registry.appendListeners(EventType.POST_COMMIT_UPDATE, OrderStatusListener.this);
+                        registry.appendListeners(EventType.POST_COMMIT_DELETE, OrderStatusListener.this);
+                    }
+
+                    @Override
+                    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                             SessionFactoryServiceRegistry serviceRegistry) {
+                    }
+                }));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Order) {
+            Status status = (Status) event.getState()[statusIndex(event.getPersister())];
+            counts.added(status);
+            String description = (String) event.getState()[event.getPersister().getEntityMetamodel()
+                    .getPropertyIndex(DESCRIPTION)];
+            eventLog.append(OrderEvent.created((Long) event.getId(), description, status));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Order)) {
+            return;
+        }
+        int index = statusIndex(event.getPersister());
+        Status status = (Status) event.getState()[index];
+        if (event.getOldState() == null) {
+            // merge de una entidad sin estado anterior: no se sabe de donde sale, se cuenta de nuevo
+            counts.recount();
+            eventLog.append(OrderEvent.transition((Long) event.getId(), status));
+            return;
+        }
+        Status previous = (Status) event.getOldState()[index];
+        counts.moved(previous, status);
+        if (previous != status) {
+            eventLog.append(OrderEvent.transition((Long) event.getId(), status));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Order) {
+            counts.removed((Status) event.getDeletedState()[statusIndex(event.getPersister())]);
+            eventLog.append(OrderEvent.deleted((Long) event.getId()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Order.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private static int statusIndex(EntityPersister persister) {
+        return persister.getEntityMetamodel().getPropertyIndex(STATUS);
+    }
+}
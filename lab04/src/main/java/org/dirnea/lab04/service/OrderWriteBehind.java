@@ -0,0 +1,493 @@
+package org.dirnea.lab04.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dirnea.lab04.events.OrderEvent;
+import org.dirnea.lab04.events.SegmentLog;
+import org.dirnea.lab04.exception.ServiceBusyException;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+import org.dirnea.lab04.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind mode of {@code POST /orders} ({@code orders.write-behind.enabled}): the order gets
+ * an id from {@link OrderIdAllocator}, is acknowledged with 202 and is inserted later by one
+ * background thread, up to {@code batch-size} orders per transaction through
+ * {@link OrderRepository#saveAll}.
+ * <p>
+ * At most {@code queue-capacity} orders wait at a time; a request that finds no room within
+ * {@code offer-timeout-ms} gets a 503. With {@code wal} every accepted order is first appended to
+ * a local {@link SegmentLog} and a checkpoint file records the last one inserted; on startup the
+ * orders after the checkpoint are inserted again (the ones already in the table are skipped).
+ * The checkpoint never passes an order that is still waiting, and the segments behind it are
+ * deleted as it moves. Without {@code wal-fsync} the log survives a crash of the process, not of
+ * the machine.
+ * <p>
+ * An order whose insert fails stays queued and is retried with a growing delay; after
+ * {@code max-attempts} it is written to the {@code dead-letter-file} (one JSON object per line)
+ * and only then leaves the log.
+ */
+@Component
+@Slf4j
+public class OrderWriteBehind {
+
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final OrderRepository repository;
+    private final OrderIdAllocator ids;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final boolean durable;
+    private final Path walDirectory;
+    private final int walSegmentSize;
+    private final boolean walFsync;
+    private final int maxAttempts;
+    private final Path deadLetterFile;
+
+    // la cola no tiene limite propio, el semaforo reserva el sitio antes de escribir en el WAL
+    private final Semaphore capacity;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, Order> pending = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+
+    private final Counter flushed;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Counter deadLettered;
+    private final Timer flushTimer;
+
+    private SegmentLog wal;
+    private Thread flusher;
+    private volatile boolean running;
+    // solo los usa el hilo que inserta
+    private final List<Pending> retries = new ArrayList<>();
+    private long lastTaken;
+    private long checkpointed;
+
+    public OrderWriteBehind(OrderRepository repository, OrderIdAllocator ids,
+                            PlatformTransactionManager transactionManager, MeterRegistry registry,
+                            ObjectMapper objectMapper,
+                            @Value("${orders.write-behind.enabled:false}") boolean enabled,
+                            @Value("${orders.write-behind.queue-capacity:10000}") int queueCapacity,
+                            @Value("${orders.write-behind.batch-size:500}") int batchSize,
+                            @Value("${orders.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+                            @Value("${orders.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis,
+                            @Value("${orders.write-behind.wal:true}") boolean durable,
+                            @Value("${orders.write-behind.wal-directory:target/order-wal}") String walDirectory,
+                            @Value("${orders.write-behind.wal-segment-size:16MB}") DataSize walSegmentSize,
+                            @Value("${orders.write-behind.wal-fsync:false}") boolean walFsync,
+                            @Value("${orders.write-behind.max-attempts:5}") int maxAttempts,
+                            @Value("${orders.write-behind.dead-letter-file:target/order-dead-letter.ndjson}")
+                                    String deadLetterFile) {
+        this.repository = repository;
+        this.ids = ids;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.durable = durable;
+        this.walDirectory = Paths.get(walDirectory);
+        this.walSegmentSize = Math.toIntExact(walSegmentSize.toBytes());
+        this.walFsync = walFsync;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.deadLetterFile = Paths.get(deadLetterFile);
+        this.capacity = new Semaphore(queueCapacity);
+
+        Gauge.builder("orders.write-behind.queue", queue, BlockingQueue::size).register(registry);
+        this.flushed = Counter.builder("orders.write-behind.flushed").register(registry);
+        this.failed = Counter.builder("orders.write-behind.failed").register(registry);
+        this.rejected = Counter.builder("orders.write-behind.rejected").register(registry);
+        this.deadLettered = Counter.builder("orders.write-behind.dead-lettered").register(registry);
+        this.flushTimer = Timer.builder("orders.write-behind.flush").register(registry);
+    }
+
+    // Antes que los ApplicationRunner: lo recuperado entra antes del seed y de contar los estados
+    @PostConstruct
+    public void start() {
+        List<Pending> leftovers = Files.isDirectory(walDirectory) ? recover() : Collections.emptyList();
+        if (!enabled) {
+            if (!leftovers.isEmpty()) {
+                log.error("{} acknowledged orders could not be inserted, the write-behind log in '{}' is kept "
+                        + "for the next start", leftovers.size(), walDirectory.toAbsolutePath());
+            }
+            return;
+        }
+        if (durable) {
+            // si quedaron ordenes sin insertar el log anterior sigue ahi y se continua sobre el
+            wal = new SegmentLog(walDirectory, walSegmentSize, walFsync);
+            checkpointed = readCheckpoint();
+            lastTaken = wal.lastSequence();
+        }
+        for (Pending item : leftovers) {
+            pending.put(item.order.getId(), copyOf(item.order));
+            retries.add(item);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "order-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Assigns an id to {@code order} and queues it for insertion.
+     *
+     * @return the same order, with its id; the queue keeps its own copy
+     * @throws ServiceBusyException if the queue stays full for {@code offer-timeout-ms}
+     */
+    public Order submit(Order order) {
+        try {
+            if (!capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new ServiceBusyException("Order queue is full", 1);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for the order queue", 1);
+        }
+        try {
+            // WAL y cola en el mismo orden: el checkpoint nunca salta una orden que sigue en la cola
+            synchronized (appendLock) {
+                if (!running) {
+                    throw new ServiceBusyException("Order queue is shutting down", 1);
+                }
+                order.setId(ids.next());
+                order.setVersion(null);
+                long sequence = 0;
+                if (wal != null) {
+                    OrderEvent accepted = OrderEvent.created(order.getId(), order.getDescription(), order.getStatus());
+                    sequence = wal.append(accepted.encode());
+                }
+                // copias: el hilo que inserta cambia la version de la suya y nadie mas la ve
+                pending.put(order.getId(), copyOf(order));
+                queue.add(new Pending(copyOf(order), sequence, true));
+            }
+            return order;
+        } catch (RuntimeException ex) {
+            capacity.release();
+            throw ex;
+        }
+    }
+
+    /** A copy of an accepted order that is not in the table yet. */
+    public Optional<Order> pending(Long id) {
+        return Optional.ofNullable(pending.get(id)).map(OrderWriteBehind::copyOf);
+    }
+
+    private static Order copyOf(Order order) {
+        Order copy = new Order(order.getDescription(), order.getStatus());
+        copy.setId(order.getId());
+        copy.setVersion(order.getVersion());
+        return copy;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        synchronized (appendLock) {
+            running = false;
+        }
+        // el hilo vacia la cola antes de terminar
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                takeRetries(batch);
+                if (batch.isEmpty()) {
+                    Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                flushTimer.record(() -> flush(batch));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // solo puede fallar el checkpoint: las ordenes ya estan insertadas o reintentandose
+                log.error("Could not write the write-behind checkpoint", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+        if (!retries.isEmpty()) {
+            // el checkpoint quedo antes de ellas: sin WAL se pierden
+            log.error("{} orders were still waiting for a retry at shutdown{}", retries.size(),
+                    wal != null ? ", they are inserted again on the next start" : " and are lost");
+        }
+    }
+
+    // Los reintentos a los que ya les toca; al cerrar se quedan en el WAL para el proximo arranque
+    private void takeRetries(List<Pending> batch) {
+        if (!running) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Iterator<Pending> it = retries.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+            Pending item = it.next();
+            if (now - item.retryAt >= 0) {
+                batch.add(item);
+                it.remove();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        save(batch);
+        for (Pending item : batch) {
+            lastTaken = Math.max(lastTaken, item.sequence);
+            if (item.error == null) {
+                done(item);
+                continue;
+            }
+            item.attempts++;
+            if (item.attempts < maxAttempts) {
+                long delay = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis) << Math.min(item.attempts, 10);
+                item.retryAt = System.nanoTime() + delay;
+                retries.add(item);
+            } else if (deadLetter(item)) {
+                done(item);
+            } else {
+                retries.add(item);
+            }
+        }
+        if (wal != null) {
+            checkpoint();
+        }
+    }
+
+    private void done(Pending item) {
+        pending.remove(item.order.getId());
+        if (item.permit) {
+            capacity.release();
+        }
+    }
+
+    // El checkpoint avanza hasta justo antes de la orden mas antigua que sigue pendiente
+    private void checkpoint() {
+        long safe = lastTaken;
+        for (Pending item : retries) {
+            safe = Math.min(safe, item.sequence - 1);
+        }
+        if (safe > checkpointed) {
+            writeCheckpoint(safe);
+            checkpointed = safe;
+            wal.truncateBefore(safe + 1);
+        }
+    }
+
+    // Un lote que falla se reintenta orden por orden; las que fallan quedan con error
+    private void save(List<Pending> batch) {
+        List<Order> orders = batch.stream().map(item -> item.order).collect(Collectors.toList());
+        batch.forEach(item -> item.error = null);
+        try {
+            transactionTemplate.execute(status -> repository.saveAll(orders));
+            flushed.increment(orders.size());
+        } catch (RuntimeException ex) {
+            log.warn("Batch of {} orders failed, saving them one by one: {}", orders.size(), ex.toString());
+            for (Pending item : batch) {
+                // persist ya le puso version 0 a la instancia, sin null save() haria un merge
+                item.order.setVersion(null);
+                try {
+                    transactionTemplate.execute(status -> repository.save(item.order));
+                    flushed.increment();
+                } catch (RuntimeException one) {
+                    failed.increment();
+                    item.error = one.toString();
+                    log.warn("Could not save order {} (attempt {} of {}): {}", item.order.getId(), item.attempts + 1,
+                            maxAttempts, item.error);
+                }
+            }
+        }
+    }
+
+    private boolean deadLetter(Pending item) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", item.order.getId());
+        line.put("description", item.order.getDescription());
+        line.put("status", item.order.getStatus());
+        line.put("attempts", item.attempts);
+        line.put("error", item.error);
+        try {
+            Path parent = deadLetterFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(deadLetterFile, (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            log.error("Could not dead-letter order {}, it stays queued", item.order.getId(), ex);
+            return false;
+        }
+        deadLettered.increment();
+        log.error("Order {} written to '{}' after {} failed attempts", item.order.getId(),
+                deadLetterFile.toAbsolutePath(), item.attempts);
+        return true;
+    }
+
+    // Inserta lo que quedo despues del checkpoint; devuelve lo que no se pudo insertar
+    private List<Pending> recover() {
+        SegmentLog previous = new SegmentLog(walDirectory, walSegmentSize, walFsync);
+        long checkpoint = readCheckpoint();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        List<Pending> leftovers = new ArrayList<>();
+        long[] recovered = {0};
+        long[] maxId = {0};
+        previous.replay(checkpoint + 1, (sequence, payload) -> {
+            OrderEvent event = OrderEvent.decode(sequence, payload);
+            Order order = new Order(event.getDescription(),
+                    event.getStatus() == null ? Status.IN_PROGRESS : event.getStatus());
+            order.setId(event.getOrderId());
+            batch.add(new Pending(order, sequence, false));
+            maxId[0] = Math.max(maxId[0], order.getId());
+            if (batch.size() == batchSize) {
+                recovered[0] += insertMissing(batch, leftovers);
+                batch.clear();
+            }
+        });
+        recovered[0] += insertMissing(batch, leftovers);
+        previous.close();
+        if (maxId[0] > 0) {
+            ids.advancePast(maxId[0]);
+            log.info("Recovered {} acknowledged orders from the write-behind log in '{}'", recovered[0],
+                    walDirectory.toAbsolutePath());
+        }
+        if (leftovers.isEmpty()) {
+            // todo lo del log ya esta en la tabla: se empieza un log nuevo
+            deleteLog();
+        }
+        return leftovers;
+    }
+
+    private int insertMissing(List<Pending> batch, List<Pending> leftovers) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> orderIds = batch.stream().map(item -> item.order.getId()).collect(Collectors.toList());
+        Set<Long> existing = repository.findAllById(orderIds).stream()
+                .map(Order::getId)
+                .collect(Collectors.toSet());
+        List<Pending> missing = batch.stream()
+                .filter(item -> !existing.contains(item.order.getId()))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        save(missing);
+        int inserted = 0;
+        for (Pending item : missing) {
+            if (item.error == null) {
+                inserted++;
+            } else {
+                item.attempts++;
+                leftovers.add(item);
+            }
+        }
+        return inserted;
+    }
+
+    private long readCheckpoint() {
+        Path file = walDirectory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + file, ex);
+        }
+    }
+
+    // Se escribe aparte y se renombra, un crash a mitad deja el checkpoint anterior
+    private void writeCheckpoint(long sequence) {
+        Path file = walDirectory.resolve(CHECKPOINT);
+        Path next = walDirectory.resolve(CHECKPOINT + ".tmp");
+        try {
+            Files.write(next, Long.toString(sequence).getBytes(StandardCharsets.US_ASCII));
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write " + file, ex);
+        }
+    }
+
+    private void deleteLog() {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not clear the write-behind log in " + walDirectory, ex);
+        }
+    }
+
+    private static final class Pending {
+        private final Order order;
+        private final long sequence;
+        // false para las recuperadas del WAL, que no ocupan sitio en la cola
+        private final boolean permit;
+        private int attempts;
+        private long retryAt;
+        private String error;
+
+        private Pending(Order order, long sequence, boolean permit) {
+            this.order = order;
+            this.sequence = sequence;
+            this.permit = permit;
+        }
+    }
+}
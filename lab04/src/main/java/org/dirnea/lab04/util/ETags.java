@@ -0,0 +1,91 @@
+package org.dirnea.lab04.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong entity tags built from the JPA {@code @Version} of an entity.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Evaluates an {@code If-Match} header against the current version of the entity.
+     *
+     * @param ifMatch the header value, may be {@code null}
+     * @param version the current version of the entity
+     * @return true when there is no precondition, it is {@code *} or one of the listed tags matches
+     */
+    public static boolean matches(String ifMatch, Long version) {
+        if (ifMatch == null) {
+            return true;
+        }
+        String current = of(version);
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header on a write to the current version of the entity.
+     *
+     * @param ifNoneMatch the header value, may be {@code null}
+     * @param version the current version of the entity
+     * @return true when there is no precondition or none of the listed tags matches (weak
+     * comparison); {@code *} matches any existing entity
+     */
+    public static boolean matchesNone(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null) {
+            return true;
+        }
+        String current = of(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The versions listed in an {@code If-Match} header, so the write itself can require one of them.
+     *
+     * @param ifMatch the header value, may be {@code null}
+     * @return {@code null} when the header does not constrain the version (absent or {@code *}),
+     * otherwise the versions of the strong tags it lists (weak or unknown tags never match)
+     */
+    public static List<Long> versions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.valueOf(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // no es una etiqueta nuestra
+                }
+            }
+        }
+        return versions;
+    }
+}
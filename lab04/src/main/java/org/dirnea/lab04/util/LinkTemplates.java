@@ -0,0 +1,117 @@
+package org.dirnea.lab04.util;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the entity links of the REST controllers without going through
+ * {@code linkTo(methodOn(...))}. The URI templates are resolved once per base URI
+ * (scheme, host, port and context path of the request) and every link afterwards is
+ * a plain string concatenation of the cached prefix, the id and the suffix.
+ */
+@Component
+public class LinkTemplates {
+
+    public static final String EMPLOYEES = "/employees";
+    public static final String EMPLOYEE = "/employees/{id}";
+    public static final String ORDERS = "/orders";
+    public static final String ORDER = "/orders/{id}";
+    public static final String ORDER_CANCEL = "/orders/{id}/cancel";
+    public static final String ORDER_COMPLETE = "/orders/{id}/complete";
+
+    // Host headers are client controlled, do not let them grow the cache without bound
+    private static final int MAX_CACHED_BASE_URIS = 64;
+    private static final String REQUEST_ATTRIBUTE = LinkTemplates.class.getName() + ".resolved";
+
+    private final ConcurrentMap<String, Resolved> byBaseUri = new ConcurrentHashMap<>();
+
+    public Link employee(Long id) {
+        return Link.of(resolved().employee.expand(id));
+    }
+
+    public Link employees(LinkRelation rel) {
+        return Link.of(resolved().employees, rel);
+    }
+
+    public Link order(Long id) {
+        return Link.of(resolved().order.expand(id));
+    }
+
+    public Link orders(LinkRelation rel) {
+        return Link.of(resolved().orders, rel);
+    }
+
+    public Link cancel(Long id, LinkRelation rel) {
+        return Link.of(resolved().cancel.expand(id), rel);
+    }
+
+    public Link complete(Long id, LinkRelation rel) {
+        return Link.of(resolved().complete.expand(id), rel);
+    }
+
+    private Resolved resolved() {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        Resolved resolved = (Resolved) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved == null) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            String baseUri = ServletUriComponentsBuilder.fromContextPath(request).toUriString();
+            resolved = byBaseUri.get(baseUri);
+            if (resolved == null) {
+                resolved = new Resolved(baseUri);
+                if (byBaseUri.size() < MAX_CACHED_BASE_URIS) {
+                    byBaseUri.putIfAbsent(baseUri, resolved);
+                }
+            }
+            attributes.setAttribute(REQUEST_ATTRIBUTE, resolved, RequestAttributes.SCOPE_REQUEST);
+        }
+        return resolved;
+    }
+
+    private static final class Resolved {
+        private final Template employee;
+        private final String employees;
+        private final Template order;
+        private final String orders;
+        private final Template cancel;
+        private final Template complete;
+
+        private Resolved(String baseUri) {
+            employee = new Template(baseUri + EMPLOYEE);
+            employees = baseUri + EMPLOYEES;
+            order = new Template(baseUri + ORDER);
+            orders = baseUri + ORDERS;
+            cancel = new Template(baseUri + ORDER_CANCEL);
+            complete = new Template(baseUri + ORDER_COMPLETE);
+        }
+    }
+
+    static final class Template {
+        private final String prefix;
+        private final String suffix;
+
+        Template(String template) {
+            int start = template.indexOf('{');
+            int end = template.indexOf('}', start);
+            if (start < 0 || end < 0) {
+                throw new IllegalArgumentException("Template without variable: " + template);
+            }
+            this.prefix = template.substring(0, start);
+            this.suffix = template.substring(end + 1);
+        }
+
+        String expand(Long id) {
+            String value = String.valueOf(id);
+            return new StringBuilder(prefix.length() + value.length() + suffix.length())
+                    .append(prefix).append(value).append(suffix).toString();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.dirnea.lab04.util;
+
+public final class MediaTypes {
+
+    // Newline delimited JSON, un documento JSON por linea
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private MediaTypes() {
+    }
+}
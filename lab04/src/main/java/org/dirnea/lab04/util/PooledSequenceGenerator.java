@@ -0,0 +1,56 @@
+package org.dirnea.lab04.util;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Sequence generator with the pooled-lo optimizer: every database call reserves a block of ids
+ * that are then handed out from memory, which keeps inserts batchable. The block size is read
+ * from the Hibernate settings ({@code spring.jpa.properties.dirnea.id.allocation_size}, default
+ * {@value #DEFAULT_ALLOCATION_SIZE}) instead of the mapping, so it can be tuned per environment.
+ * <p>
+ * With the {@value #PREASSIGNED} parameter an entity that already has an id keeps it; the id
+ * must come from a block of the same sequence (see {@code OrderIdAllocator} and
+ * {@code OrderIdListener}).
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "org.dirnea.lab04.util.PooledSequenceGenerator";
+    public static final String ALLOCATION_SIZE = "dirnea.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String PREASSIGNED = "preassigned";
+
+    private boolean preassigned;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATION_SIZE);
+        int allocationSize = setting == null ? DEFAULT_ALLOCATION_SIZE : Integer.parseInt(setting.toString().trim());
+        if (allocationSize < 1) {
+            throw new MappingException(ALLOCATION_SIZE + " must be positive: " + allocationSize);
+        }
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        preassigned = Boolean.parseBoolean(params.getProperty(PREASSIGNED));
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (preassigned) {
+            Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+            if (id != null) {
+                return id;
+            }
+        }
+        return super.generate(session, object);
+    }
+}
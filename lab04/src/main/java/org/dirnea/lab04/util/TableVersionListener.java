@@ -0,0 +1,27 @@
+package org.dirnea.lab04.util;
+
+import org.hibernate.Hibernate;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that reports every insert, update and delete to {@link TableVersions}.
+ * Hibernate gets the instance from Spring, through the bean container Spring Boot configures.
+ */
+public class TableVersionListener {
+
+    private final TableVersions tableVersions;
+
+    public TableVersionListener(TableVersions tableVersions) {
+        this.tableVersions = tableVersions;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        tableVersions.changed(Hibernate.getClass(entity));
+    }
+}
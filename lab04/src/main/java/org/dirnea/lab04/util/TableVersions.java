@@ -0,0 +1,72 @@
+package org.dirnea.lab04.util;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One version number per entity table, increased after every committed change to it. The
+ * list endpoints build a weak ETag from it and answer 304 without running the query.
+ * Entity changes arrive through {@link TableVersionListener}; bulk and JDBC updates bypass
+ * entity listeners, so whoever runs one calls {@link #changed(Class)} itself.
+ * <p>
+ * Versions start at the startup time in milliseconds, so a tag handed out before a restart
+ * does not match the data loaded after it.
+ */
+@Component
+public class TableVersions {
+
+    private final long initial = System.currentTimeMillis();
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(Class<?> entity) {
+        return counter(entity).get();
+    }
+
+    /**
+     * Weak ETag of every list of {@code entity}, e.g. {@code W/"employee-1590000000123"}.
+     * Read it before running the query: a change committed in between then only costs the
+     * client one more full response.
+     */
+    public String etag(Class<?> entity) {
+        return "W/\"" + entity.getSimpleName().toLowerCase() + "-" + current(entity) + "\"";
+    }
+
+    /**
+     * Marks {@code entity} as changed. Inside a transaction the version moves once, after the
+     * commit, however many rows were written; a rollback leaves it as it was.
+     */
+    public void changed(Class<?> entity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter(entity).incrementAndGet();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Class<?>> pending = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Class<?>> changed = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableVersions.this);
+                    if (status == STATUS_COMMITTED) {
+                        changed.forEach(type -> counter(type).incrementAndGet());
+                    }
+                }
+            });
+            pending = changed;
+        }
+        pending.add(entity);
+    }
+
+    private AtomicLong counter(Class<?> entity) {
+        return versions.computeIfAbsent(entity, type -> new AtomicLong(initial));
+    }
+}
@@ -0,0 +1,48 @@
+package org.dirnea.lab04.apierror;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+class ApiErrorWriterTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+    private final ApiErrorWriter writer = new ApiErrorWriter();
+
+    @Test
+    void writesWhatJacksonWrites() throws Exception {
+        ApiError apiError = new ApiError(NOT_FOUND);
+        apiError.setMessage("Employee was not found for parameters {id=4}");
+        assertSameAsJackson(apiError);
+    }
+
+    @Test
+    void escapesMessagesLikeJackson() throws Exception {
+        ApiError apiError = new ApiError(BAD_REQUEST, "Could not find the GET method for URL /\"a\\b\"\n\u0001",
+                new IllegalStateException("café \t€ 😀"));
+        assertSameAsJackson(apiError);
+    }
+
+    @Test
+    void leavesSubErrorsToJackson() {
+        ApiError apiError = new ApiError(BAD_REQUEST);
+        apiError.setMessage("Validation error");
+        apiError.setSubErrors(Collections.emptyList());
+        assertThat(writer.write(apiError)).isNull();
+    }
+
+    private void assertSameAsJackson(ApiError apiError) throws Exception {
+        assertThat(new String(writer.write(apiError), StandardCharsets.UTF_8))
+                .isEqualTo(objectMapper.writeValueAsString(apiError));
+    }
+}
@@ -0,0 +1,89 @@
+package org.dirnea.lab04.controller;
+
+import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+import org.dirnea.lab04.repository.EmployeeRepository;
+import org.dirnea.lab04.repository.OrderRepository;
+import org.dirnea.lab04.util.ETags;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalRequestsTests {
+
+    private static final String REPLACEMENT = "{\"nombre\": \"Ana Diaz\", \"cargo\": \"lead\"}";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EmployeeRepository employees;
+
+    @Autowired
+    OrderRepository orders;
+
+    @Test
+    void readWithTheCurrentTagIsNotModified() throws Exception {
+        Employee employee = employees.save(new Employee("Ana Diaz", "tester"));
+
+        mvc.perform(get("/employees/{id}", employee.getId()).header(IF_NONE_MATCH, ETags.of(employee.getVersion())))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void employeeWritesFailWhenIfNoneMatchMatches() throws Exception {
+        Employee employee = employees.save(new Employee("Ana Diaz", "tester"));
+        Long id = employee.getId();
+        String current = ETags.of(employee.getVersion());
+
+        mvc.perform(put("/employees/{id}", id).header(IF_NONE_MATCH, "*")
+                .contentType(MediaType.APPLICATION_JSON).content(REPLACEMENT))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(delete("/employees/{id}", id).header(IF_NONE_MATCH, current))
+                .andExpect(status().isPreconditionFailed());
+
+        // otra version en If-None-Match: la escritura sigue
+        mvc.perform(put("/employees/{id}", id).header(IF_NONE_MATCH, ETags.of(employee.getVersion() + 1))
+                .contentType(MediaType.APPLICATION_JSON).content(REPLACEMENT))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, ETags.of(employee.getVersion() + 1)));
+    }
+
+    @Test
+    void orderTransitionsFailWhenIfNoneMatchMatches() throws Exception {
+        Order order = orders.save(new Order("conditional", Status.IN_PROGRESS));
+
+        mvc.perform(put("/orders/{id}/complete", order.getId()).header(IF_NONE_MATCH, "*"))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(delete("/orders/{id}/cancel", order.getId()).header(IF_NONE_MATCH, ETags.of(order.getVersion())))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(put("/orders/{id}/complete", order.getId()).header(IF_MATCH, ETags.of(order.getVersion() + 1)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void transitionOutOfAFinalStateIsAConflict() throws Exception {
+        Order order = orders.save(new Order("conditional", Status.IN_PROGRESS));
+
+        mvc.perform(delete("/orders/{id}/cancel", order.getId()).header(IF_MATCH, ETags.of(order.getVersion())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, ETags.of(order.getVersion() + 1)));
+        mvc.perform(put("/orders/{id}/complete", order.getId()))
+                .andExpect(status().isConflict());
+    }
+}
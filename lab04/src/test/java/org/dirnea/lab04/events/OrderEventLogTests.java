@@ -0,0 +1,48 @@
+package org.dirnea.lab04.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dirnea.lab04.model.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class OrderEventLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void returnsTheHistoryOfOneOrder() {
+        OrderEventLog log = open(false);
+        log.append(OrderEvent.created(1, "first", Status.IN_PROGRESS));
+        log.append(OrderEvent.created(2, "second", Status.IN_PROGRESS));
+        log.append(OrderEvent.transition(1, Status.COMPLETED));
+        log.append(OrderEvent.transition(2, Status.CANCELLED));
+
+        assertThat(log.history(1)).extracting(OrderEvent::getSequence, OrderEvent::getType, OrderEvent::getStatus)
+                .containsExactly(
+                        tuple(1L, OrderEvent.Type.CREATED, Status.IN_PROGRESS),
+                        tuple(3L, OrderEvent.Type.TRANSITION, Status.COMPLETED));
+        assertThat(log.history(3)).isEmpty();
+    }
+
+    @Test
+    void rebuildsTheIndexWhenTheLogIsKept() {
+        OrderEventLog log = open(false);
+        log.append(OrderEvent.created(1, "first", Status.IN_PROGRESS));
+        log.append(OrderEvent.transition(1, Status.COMPLETED));
+        log.close();
+
+        assertThat(open(true).history(1)).hasSize(2);
+        assertThat(open(false).history(1)).isEmpty();
+    }
+
+    private OrderEventLog open(boolean keep) {
+        return new OrderEventLog(directory.toString(), DataSize.ofKilobytes(1), false, keep, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,42 @@
+package org.dirnea.lab04.events;
+
+import org.dirnea.lab04.model.Status;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderEventTests {
+
+    @Test
+    void roundTripsEveryType() {
+        OrderEvent created = roundTrip(OrderEvent.created(7, "MacBook Pro, ñandú", Status.IN_PROGRESS));
+        assertThat(created.getSequence()).isEqualTo(42);
+        assertThat(created.getOrderId()).isEqualTo(7);
+        assertThat(created.getType()).isEqualTo(OrderEvent.Type.CREATED);
+        assertThat(created.getStatus()).isEqualTo(Status.IN_PROGRESS);
+        assertThat(created.getDescription()).isEqualTo("MacBook Pro, ñandú");
+
+        OrderEvent completed = roundTrip(OrderEvent.transition(7, Status.COMPLETED));
+        assertThat(completed.getType()).isEqualTo(OrderEvent.Type.TRANSITION);
+        assertThat(completed.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(completed.getDescription()).isNull();
+
+        OrderEvent deleted = roundTrip(OrderEvent.deleted(7));
+        assertThat(deleted.getType()).isEqualTo(OrderEvent.Type.DELETED);
+        assertThat(deleted.getStatus()).isNull();
+    }
+
+    @Test
+    void cutsDescriptionsThatDoNotFit() {
+        String description = new String(new char[100_000]).replace('\0', 'x');
+        OrderEvent event = roundTrip(OrderEvent.created(1, description, Status.IN_PROGRESS));
+        assertThat(description).startsWith(event.getDescription());
+        assertThat(event.getDescription().length()).isLessThan(0xFFFF);
+    }
+
+    private static OrderEvent roundTrip(OrderEvent event) {
+        OrderEvent decoded = OrderEvent.decode(42, event.encode());
+        assertThat(decoded.getTimestamp()).isEqualTo(event.getTimestamp());
+        return decoded;
+    }
+}
@@ -0,0 +1,151 @@
+package org.dirnea.lab04.events;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsInOrderAcrossSegments() throws IOException {
+        SegmentLog log = new SegmentLog(directory, 64, false);
+        for (int i = 1; i <= 10; i++) {
+            assertThat(log.append(text("record-" + i))).isEqualTo(i);
+        }
+        assertThat(segmentFiles()).isGreaterThan(1);
+        assertThat(read(log, 1)).hasSize(10).startsWith("1:record-1").endsWith("10:record-10");
+        assertThat(read(log, 8)).containsExactly("8:record-8", "9:record-9", "10:record-10");
+    }
+
+    @Test
+    void continuesAfterTheLastRecordWhenReopened() {
+        SegmentLog log = new SegmentLog(directory, 64, false);
+        log.append(text("a"));
+        log.append(text("b"));
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, 64, false);
+        assertThat(reopened.lastSequence()).isEqualTo(2);
+        assertThat(reopened.append(text("c"))).isEqualTo(3);
+        assertThat(read(reopened, 1)).containsExactly("1:a", "2:b", "3:c");
+    }
+
+    @Test
+    void replaysSealedSegmentsAfterReopening() {
+        SegmentLog log = new SegmentLog(directory, 64, false);
+        for (int i = 1; i <= 10; i++) {
+            log.append(text("record-" + i));
+        }
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, 64, false);
+        reopened.append(text("record-11"));
+        assertThat(read(reopened, 1)).hasSize(11).startsWith("1:record-1").endsWith("11:record-11");
+        assertThat(read(reopened, 9)).containsExactly("9:record-9", "10:record-10", "11:record-11");
+    }
+
+    @Test
+    void stopsAtACorruptRecord() throws IOException {
+        SegmentLog log = new SegmentLog(directory, 1024, false);
+        log.append(text("first"));
+        log.append(text("second"));
+        log.close();
+
+        // un byte del payload del segundo registro, como una escritura cortada a medias
+        int secondPayload = SegmentLog.HEADER + "first".length() + SegmentLog.HEADER;
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d.log", 0)),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), secondPayload);
+        }
+
+        SegmentLog reopened = new SegmentLog(directory, 1024, false);
+        assertThat(reopened.lastSequence()).isEqualTo(1);
+        assertThat(reopened.append(text("third"))).isEqualTo(2);
+        assertThat(read(reopened, 1)).containsExactly("1:first", "2:third");
+    }
+
+    @Test
+    void readsSingleRecordsByAddress() {
+        SegmentLog log = new SegmentLog(directory, 64, false);
+        assertThat(log.lastAddress()).isEqualTo(-1);
+        List<Long> addresses = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            log.append(text("record-" + i));
+            addresses.add(log.lastAddress());
+        }
+
+        List<String> records = new ArrayList<>();
+        for (long address : Arrays.asList(addresses.get(9), addresses.get(0), addresses.get(4))) {
+            assertThat(log.read(address, (sequence, payload) ->
+                    records.add(sequence + ":" + StandardCharsets.UTF_8.decode(payload)))).isTrue();
+        }
+        assertThat(records).containsExactly("10:record-10", "1:record-1", "5:record-5");
+        assertThat(log.read(addresses.get(9) + 100, (sequence, payload) -> records.add("none"))).isFalse();
+
+        List<Long> replayed = new ArrayList<>();
+        new SegmentLog(directory, 64, false).replay(1, (address, sequence, payload) -> replayed.add(address));
+        assertThat(replayed).isEqualTo(addresses);
+    }
+
+    @Test
+    void deletesTheSegmentsBeforeASequence() throws IOException {
+        SegmentLog log = new SegmentLog(directory, 64, false);
+        for (int i = 1; i <= 10; i++) {
+            log.append(text("record-" + i));
+        }
+        assertThat(segmentFiles()).isEqualTo(5);
+
+        // dos registros por segmento: 1-2, 3-4 y 5-6 quedan enteros antes del 7
+        assertThat(log.truncateBefore(7)).isEqualTo(3);
+        assertThat(segmentFiles()).isEqualTo(2);
+        assertThat(read(log, 1)).containsExactly("7:record-7", "8:record-8", "9:record-9", "10:record-10");
+        assertThat(log.truncateBefore(100)).isZero();
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, 64, false);
+        assertThat(reopened.lastSequence()).isEqualTo(10);
+        assertThat(read(reopened, 1)).hasSize(4).startsWith("7:record-7");
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() {
+        SegmentLog log = new SegmentLog(directory, 64, false);
+        assertThatThrownBy(() -> log.append(ByteBuffer.allocate(64)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(log.lastSequence()).isZero();
+    }
+
+    private static ByteBuffer text(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> read(SegmentLog log, long from) {
+        List<String> records = new ArrayList<>();
+        log.replay(from, (sequence, payload) ->
+                records.add(sequence + ":" + StandardCharsets.UTF_8.decode(payload)));
+        return records;
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
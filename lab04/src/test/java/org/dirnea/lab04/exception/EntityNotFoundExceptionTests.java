@@ -0,0 +1,29 @@
+package org.dirnea.lab04.exception;
+
+import org.dirnea.lab04.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntityNotFoundExceptionTests {
+
+    @Test
+    void messageListsTheSearchParameters() {
+        assertThat(new EntityNotFoundException(Employee.class, "id", "4").getMessage())
+                .isEqualTo("Employee was not found for parameters {id=4}");
+        assertThat(new EntityNotFoundException(Employee.class, "name", "Bilbo", "role", "burglar").getMessage())
+                .isEqualTo("Employee was not found for parameters {name=Bilbo, role=burglar}");
+    }
+
+    @Test
+    void hasNoStackTrace() {
+        assertThat(new EntityNotFoundException(Employee.class, "id", "4").getStackTrace()).isEmpty();
+    }
+
+    @Test
+    void rejectsAKeyWithoutValue() {
+        assertThatThrownBy(() -> new EntityNotFoundException(Employee.class, "id"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,64 @@
+package org.dirnea.lab04.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimitTests {
+
+    private static final long TARGET = 100;
+
+    @Test
+    void rejectsAboveTheLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, TARGET, 0.5);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release(TARGET, false);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileFastAndBusy() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, TARGET, 0.5);
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.tryAcquire();
+            limit.release(TARGET, false);
+            limit.release(TARGET, false);
+        }
+        assertThat(limit.getLimit()).isGreaterThan(2);
+    }
+
+    @Test
+    void shrinksOnSlowOrFailedResponses() {
+        AdaptiveLimit limit = new AdaptiveLimit(8, 1, 10, TARGET, 0.5);
+        limit.tryAcquire();
+        limit.release(TARGET + 1, false);
+        assertThat(limit.getLimit()).isEqualTo(4);
+        limit.tryAcquire();
+        limit.release(TARGET, true);
+        assertThat(limit.getLimit()).isEqualTo(2);
+        limit.tryAcquire();
+        limit.release(TARGET, true);
+        limit.tryAcquire();
+        limit.release(TARGET, true);
+        assertThat(limit.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void backsOffOncePerWindow() {
+        AdaptiveLimit limit = new AdaptiveLimit(8, 1, 10, TARGET, 0.5);
+        for (int i = 0; i < 8; i++) {
+            limit.tryAcquire();
+        }
+        // las 8 lentas se admitieron con el mismo limite: un solo recorte
+        for (int i = 0; i < 8; i++) {
+            limit.release(TARGET + 1, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(4);
+        limit.tryAcquire();
+        limit.release(TARGET + 1, false);
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+}
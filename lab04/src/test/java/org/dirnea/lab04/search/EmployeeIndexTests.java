@@ -0,0 +1,67 @@
+package org.dirnea.lab04.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmployeeIndexTests {
+
+    private EmployeeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EmployeeIndex(new SimpleMeterRegistry());
+        index.put(1, "Bilbo Baggins", "burglar");
+        index.put(2, "Frodo Baggins", "thief");
+        index.put(3, "José Pérez", "Instructor");
+    }
+
+    @Test
+    void matchesWordsPrefixesAndTypos() {
+        assertThat(ids("baggins")).containsExactly(1L, 2L);
+        assertThat(ids("bag")).containsExactly(1L, 2L);
+        assertThat(ids("bagins")).containsExactly(1L, 2L);
+        assertThat(ids("jose perez")).containsExactly(3L);
+        assertThat(ids("xyz")).isEmpty();
+    }
+
+    @Test
+    void everyWordMustMatchAndExactWordsRankFirst() {
+        assertThat(ids("frodo baggins")).containsExactly(2L);
+        index.put(4, "Bagginsson", "thief");
+        assertThat(ids("baggins")).containsExactly(1L, 2L, 4L);
+        assertThat(index.search("baggins", 3).get(0).getScore())
+                .isGreaterThan(index.search("baggins", 3).get(2).getScore());
+    }
+
+    @Test
+    void followsUpdatesAndRemovals() {
+        index.put(2, "Frodo Bolson", "thief");
+        index.remove(1);
+        assertThat(ids("baggins")).isEmpty();
+        assertThat(ids("bolson")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void boundsTheWordsOfAnEmployee() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < EmployeeIndex.MAX_TERMS; i++) {
+            name.append("word").append(i).append(' ');
+        }
+        long before = index.estimatedBytes();
+        index.put(5, name.append("zebra").toString(), "x");
+        assertThat(ids("word15")).containsExactly(5L);
+        assertThat(ids("zebra")).isEmpty();
+        assertThat(index.estimatedBytes()).isGreaterThan(before);
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).stream().map(EmployeeIndex.Hit::getId).collect(Collectors.toList());
+    }
+}
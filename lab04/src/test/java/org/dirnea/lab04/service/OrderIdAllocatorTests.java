@@ -0,0 +1,77 @@
+package org.dirnea.lab04.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderIdAllocatorTests {
+
+    // order_seq con incremento 3, como lo deja el optimizador pooled-lo
+    private final List<String> statements = new ArrayList<>();
+    private long sequence = 1;
+
+    private final JdbcTemplate jdbc = new JdbcTemplate() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            statements.add(sql);
+            long value = sequence;
+            sequence += 3;
+            return (T) Long.valueOf(value);
+        }
+
+        @Override
+        public void execute(String sql) {
+            statements.add(sql);
+        }
+    };
+
+    private final OrderIdAllocator allocator = new OrderIdAllocator(jdbc, 3);
+
+    @Test
+    void handsOutABlockPerSequenceCall() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(allocator.next());
+        }
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(statements).hasSize(3);
+    }
+
+    @Test
+    void advancesTheSequenceOnlyWhenBehind() {
+        allocator.advancePast(0);
+        assertThat(statements).containsExactly("SELECT NEXT VALUE FOR order_seq");
+
+        statements.clear();
+        allocator.advancePast(100);
+        assertThat(statements).containsExactly("SELECT NEXT VALUE FOR order_seq",
+                "ALTER SEQUENCE order_seq RESTART WITH 101");
+    }
+
+    @Test
+    void dropsTheIdsInMemoryThatWereWrittenBehindItsBack() {
+        assertThat(allocator.next()).isEqualTo(1);
+        // filas 2 y 3 escritas por una recuperacion: el resto del bloque ya no sirve
+        allocator.advancePast(3);
+        assertThat(allocator.next()).isEqualTo(4);
+        assertThat(statements).hasSize(2);
+    }
+
+    @Test
+    void restartsTheSequencePastTheBlockInMemory() {
+        assertThat(allocator.next()).isEqualTo(1);
+        // la secuencia se reinicio por fuera y volveria a dar 1..3
+        sequence = 1;
+        statements.clear();
+        allocator.advancePast(1);
+        assertThat(statements).containsExactly("SELECT NEXT VALUE FOR order_seq",
+                "ALTER SEQUENCE order_seq RESTART WITH 4");
+        assertThat(allocator.next()).isEqualTo(2);
+        assertThat(allocator.next()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,32 @@
+package org.dirnea.lab04.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dirnea.lab04.model.Status;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusCountsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderStatusCounts counts = new OrderStatusCounts(null, registry);
+
+    @Test
+    void followsInsertsTransitionsAndDeletes() {
+        counts.added(Status.IN_PROGRESS);
+        counts.added(Status.IN_PROGRESS);
+        counts.moved(Status.IN_PROGRESS, Status.COMPLETED);
+        counts.moved(Status.COMPLETED, Status.COMPLETED);
+        counts.removed(Status.IN_PROGRESS);
+        assertThat(counts.snapshot())
+                .containsEntry(Status.IN_PROGRESS, 0L)
+                .containsEntry(Status.COMPLETED, 1L)
+                .containsEntry(Status.CANCELLED, 0L);
+    }
+
+    @Test
+    void publishesAGaugePerStatus() {
+        counts.added(Status.CANCELLED);
+        assertThat(registry.get("orders.status").tag("status", "CANCELLED").gauge().value()).isEqualTo(1.0);
+    }
+}
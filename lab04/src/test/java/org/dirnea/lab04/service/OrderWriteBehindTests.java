@@ -0,0 +1,242 @@
+package org.dirnea.lab04.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dirnea.lab04.events.OrderEvent;
+import org.dirnea.lab04.events.SegmentLog;
+import org.dirnea.lab04.exception.ServiceBusyException;
+import org.dirnea.lab04.model.Order;
+import org.dirnea.lab04.model.Status;
+import org.dirnea.lab04.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderWriteBehindTests {
+
+    // las ordenes con esta descripcion no se pueden insertar
+    private static final String FAILS = "fails";
+
+    @TempDir
+    Path directory;
+
+    // CUSTOMER_ORDER en memoria, solo lo que usa OrderWriteBehind
+    private final Map<Long, Order> table = new ConcurrentHashMap<>();
+    private final List<Long> inserted = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private OrderWriteBehind writeBehind;
+
+    private final OrderRepository repository = (OrderRepository) Proxy.newProxyInstance(
+            OrderRepository.class.getClassLoader(), new Class<?>[]{OrderRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "saveAll":
+                        gate.await();
+                        List<Order> orders = new ArrayList<>();
+                        ((Iterable<?>) args[0]).forEach(order -> orders.add((Order) order));
+                        // todo o nada, como la transaccion
+                        orders.forEach(this::check);
+                        orders.forEach(this::insert);
+                        return orders;
+                    case "save":
+                        gate.await();
+                        check((Order) args[0]);
+                        insert((Order) args[0]);
+                        return args[0];
+                    case "findAllById":
+                        return StreamSupport.stream(((Iterable<?>) args[0]).spliterator(), false)
+                                .map(table::get)
+                                .filter(order -> order != null)
+                                .collect(Collectors.toList());
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    // order_seq de uno en uno
+    private final OrderIdAllocator ids = new OrderIdAllocator(new JdbcTemplate() {
+        private long sequence = 1;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return (T) Long.valueOf(sequence++);
+        }
+
+        @Override
+        public void execute(String sql) {
+        }
+    }, 1);
+
+    private final PlatformTransactionManager transactions = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        gate.countDown();
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void recoverySkipsTheOrdersAlreadyInTheTable() {
+        SegmentLog log = new SegmentLog(wal(), 1024, false);
+        log.append(OrderEvent.created(1, "inserted before the crash", Status.IN_PROGRESS).encode());
+        log.append(OrderEvent.created(2, "lost in the crash", Status.IN_PROGRESS).encode());
+        log.close();
+        Order existing = new Order("already completed", Status.COMPLETED);
+        existing.setId(1L);
+        table.put(1L, existing);
+
+        writeBehind = writeBehind(false, 10, 3);
+        writeBehind.start();
+
+        assertThat(inserted).containsExactly(2L);
+        assertThat(table.get(1L).getDescription()).isEqualTo("already completed");
+        assertThat(table.get(2L).getDescription()).isEqualTo("lost in the crash");
+        // todo quedo en la tabla: el log se borra
+        assertThat(wal().toFile().list()).isEmpty();
+    }
+
+    @Test
+    void checkpointNeverPassesARetryingOrder() throws InterruptedException {
+        writeBehind = writeBehind(true, 10, 100);
+        writeBehind.start();
+
+        Order first = writeBehind.submit(new Order("first", Status.IN_PROGRESS));
+        Order stuck = writeBehind.submit(new Order(FAILS, Status.IN_PROGRESS));
+        Order third = writeBehind.submit(new Order("third", Status.IN_PROGRESS));
+        await(() -> table.containsKey(third.getId()) && failures.get() >= 3);
+
+        assertThat(table).containsKey(first.getId()).doesNotContainKey(stuck.getId());
+        assertThat(checkpoint()).isEqualTo(1);
+        assertThat(writeBehind.pending(stuck.getId())).hasValueSatisfying(order -> {
+            assertThat(order).isNotSameAs(stuck);
+            assertThat(order.getDescription()).isEqualTo(FAILS);
+        });
+    }
+
+    @Test
+    void deadLettersAnOrderAfterMaxAttempts() throws InterruptedException, IOException {
+        writeBehind = writeBehind(true, 10, 2);
+        writeBehind.start();
+
+        Order stuck = writeBehind.submit(new Order(FAILS, Status.IN_PROGRESS));
+        Order next = writeBehind.submit(new Order("next", Status.IN_PROGRESS));
+        await(() -> checkpoint() == 2);
+
+        List<String> lines = Files.readAllLines(deadLetterFile());
+        assertThat(lines).hasSize(1);
+        JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertThat(line.get("id").asLong()).isEqualTo(stuck.getId());
+        assertThat(line.get("attempts").asInt()).isEqualTo(2);
+        assertThat(writeBehind.pending(stuck.getId())).isEmpty();
+        assertThat(table).containsKey(next.getId()).doesNotContainKey(stuck.getId());
+    }
+
+    @Test
+    void rejectsWithServiceBusyWhenTheQueueIsFull() throws InterruptedException {
+        gate = new CountDownLatch(1);
+        writeBehind = writeBehind(true, 1, 3);
+        writeBehind.start();
+
+        Order first = writeBehind.submit(new Order("first", Status.IN_PROGRESS));
+        assertThatThrownBy(() -> writeBehind.submit(new Order("second", Status.IN_PROGRESS)))
+                .isInstanceOf(ServiceBusyException.class);
+
+        gate.countDown();
+        await(() -> table.containsKey(first.getId()));
+        // el sitio se libera justo despues de insertarla
+        await(() -> {
+            try {
+                return writeBehind.submit(new Order("third", Status.IN_PROGRESS)) != null;
+            } catch (ServiceBusyException ex) {
+                return false;
+            }
+        });
+    }
+
+    private OrderWriteBehind writeBehind(boolean enabled, int queueCapacity, int maxAttempts) {
+        return new OrderWriteBehind(repository, ids, transactions, new SimpleMeterRegistry(), new ObjectMapper(),
+                enabled, queueCapacity, 100, 10, 0, true, wal().toString(), DataSize.ofKilobytes(1), false,
+                maxAttempts, deadLetterFile().toString());
+    }
+
+    private void check(Order order) {
+        if (FAILS.equals(order.getDescription())) {
+            failures.incrementAndGet();
+            throw new IllegalStateException("constraint violation");
+        }
+    }
+
+    private void insert(Order order) {
+        order.setVersion(0L);
+        table.put(order.getId(), order);
+        inserted.add(order.getId());
+    }
+
+    private Path wal() {
+        return directory.resolve("wal");
+    }
+
+    private Path deadLetterFile() {
+        return directory.resolve("dead-letter.ndjson");
+    }
+
+    private long checkpoint() {
+        Path file = wal().resolve("checkpoint");
+        try {
+            return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition not met within 10s").isNegative();
+            Thread.sleep(5);
+        }
+    }
+}
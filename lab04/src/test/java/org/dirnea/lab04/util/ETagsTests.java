@@ -0,0 +1,45 @@
+package org.dirnea.lab04.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagsTests {
+
+    @Test
+    void tagIsTheQuotedVersion() {
+        assertThat(ETags.of(3L)).isEqualTo("\"3\"");
+    }
+
+    @Test
+    void ifMatchAcceptsAbsentWildcardAndListedTags() {
+        assertThat(ETags.matches(null, 3L)).isTrue();
+        assertThat(ETags.matches("*", 3L)).isTrue();
+        assertThat(ETags.matches("\"3\"", 3L)).isTrue();
+        assertThat(ETags.matches("\"1\", \"3\"", 3L)).isTrue();
+    }
+
+    @Test
+    void ifMatchRejectsOtherAndWeakTags() {
+        assertThat(ETags.matches("\"2\"", 3L)).isFalse();
+        assertThat(ETags.matches("W/\"3\"", 3L)).isFalse();
+    }
+
+    @Test
+    void ifNoneMatchFailsOnWildcardAndListedTags() {
+        assertThat(ETags.matchesNone(null, 3L)).isTrue();
+        assertThat(ETags.matchesNone("\"2\"", 3L)).isTrue();
+        assertThat(ETags.matchesNone("*", 3L)).isFalse();
+        assertThat(ETags.matchesNone("\"1\", W/\"3\"", 3L)).isFalse();
+    }
+
+    @Test
+    void ifMatchVersionsAreTheListedStrongTags() {
+        assertThat(ETags.versions(null)).isNull();
+        assertThat(ETags.versions("*")).isNull();
+        assertThat(ETags.versions("\"1\", \"3\"")).isEqualTo(List.of(1L, 3L));
+        assertThat(ETags.versions("W/\"3\", \"abc\"")).isEmpty();
+    }
+}
@@ -0,0 +1,46 @@
+package org.dirnea.lab04.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LinkTemplatesTests {
+
+    private final LinkTemplates links = new LinkTemplates();
+
+    @BeforeEach
+    void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/7");
+        request.setServerName("localhost");
+        request.setServerPort(8088);
+        request.setContextPath("/lab04");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void expandsEntityTemplates() {
+        assertThat(links.employee(4L).getHref()).isEqualTo("http://localhost:8088/lab04/employees/4");
+        assertThat(links.employee(4L).getRel()).isEqualTo(IanaLinkRelations.SELF);
+        assertThat(links.order(7L).getHref()).isEqualTo("http://localhost:8088/lab04/orders/7");
+        assertThat(links.cancel(7L, LinkRelation.of("cancel")).getHref()).isEqualTo("http://localhost:8088/lab04/orders/7/cancel");
+        assertThat(links.complete(7L, LinkRelation.of("complete")).getHref()).isEqualTo("http://localhost:8088/lab04/orders/7/complete");
+    }
+
+    @Test
+    void collectionLinksUseTheGivenRelation() {
+        assertThat(links.employees(LinkRelation.of("todos")).getHref()).isEqualTo("http://localhost:8088/lab04/employees");
+        assertThat(links.orders(LinkRelation.of("todos")).getRel().value()).isEqualTo("todos");
+    }
+}
@@ -0,0 +1,56 @@
+package org.dirnea.lab04.util;
+
+import org.dirnea.lab04.model.Employee;
+import org.dirnea.lab04.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableVersionsTests {
+
+    private final TableVersions versions = new TableVersions();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void tagIsWeakAndPerTable() {
+        long version = versions.current(Employee.class);
+        assertThat(versions.etag(Employee.class)).isEqualTo("W/\"employee-" + version + "\"");
+        versions.changed(Employee.class);
+        assertThat(versions.current(Employee.class)).isEqualTo(version + 1);
+        assertThat(versions.current(Order.class)).isEqualTo(version);
+    }
+
+    @Test
+    void movesOnceAfterCommit() {
+        long version = versions.current(Employee.class);
+        TransactionSynchronizationManager.initSynchronization();
+        versions.changed(Employee.class);
+        versions.changed(Employee.class);
+        assertThat(versions.current(Employee.class)).isEqualTo(version);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(versions.current(Employee.class)).isEqualTo(version + 1);
+    }
+
+    @Test
+    void staysOnRollback() {
+        long version = versions.current(Order.class);
+        TransactionSynchronizationManager.initSynchronization();
+        versions.changed(Order.class);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(versions.current(Order.class)).isEqualTo(version);
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
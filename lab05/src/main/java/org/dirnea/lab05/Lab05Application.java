@@ -0,0 +1,13 @@
+package org.dirnea.lab05;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class Lab05Application {
+
+	public static void main(String[] args) {
+		SpringApplication.run(Lab05Application.class, args);
+	}
+
+}
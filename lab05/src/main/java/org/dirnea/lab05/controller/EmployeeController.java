@@ -0,0 +1,58 @@
+package org.dirnea.lab05.controller;
+
+import org.dirnea.lab05.exception.EntityNotFoundException;
+import org.dirnea.lab05.model.Employee;
+import org.dirnea.lab05.repository.EmployeeRepository;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Mismas rutas que lab04, pero ninguna peticion bloquea un hilo: el event loop de Netty
+// atiende la siguiente mientras R2DBC espera a la base de datos.
+@RestController
+public class EmployeeController {
+
+    private final EmployeeRepository repository;
+
+    public EmployeeController(EmployeeRepository repository) {
+        this.repository = repository;
+    }
+
+    // http://localhost:8089/employees
+    @GetMapping("/employees")
+    public Flux<Employee> all() {
+        return repository.findAll();
+    }
+
+    @PostMapping("/employees")
+    Mono<Employee> newEmployee(@RequestBody Employee employee) {
+        return repository.save(employee);
+    }
+
+    // http://localhost:8089/employees/4
+    @GetMapping("/employees/{id}")
+    public Mono<Employee> one(@PathVariable Long id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Employee.class, id)));
+    }
+
+    // Igual que en lab04: si no existe se crea uno nuevo con id generado
+    @PutMapping("/employees/{id}")
+    Mono<Employee> replaceEmployee(@RequestBody Employee employee, @PathVariable Long id) {
+        return repository.findById(id)
+                .flatMap(employeeTemp -> {
+                    employeeTemp.setName(employee.getName());
+                    employeeTemp.setRole(employee.getRole());
+                    return repository.save(employeeTemp); // update
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    employee.setId(null);
+                    return repository.save(employee); // insert
+                }));
+    }
+
+    @DeleteMapping("/employees/{id}")
+    Mono<Void> deleteEmployee(@PathVariable Long id) {
+        return repository.deleteById(id);
+    }
+}
@@ -0,0 +1,57 @@
+package org.dirnea.lab05.controller;
+
+import org.dirnea.lab05.exception.EntityNotFoundException;
+import org.dirnea.lab05.exception.InvalidStateTransitionException;
+import org.dirnea.lab05.model.Order;
+import org.dirnea.lab05.model.Status;
+import org.dirnea.lab05.repository.OrderRepository;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+class OrderController {
+
+    private final OrderRepository orderRepository;
+
+    OrderController(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    // http://localhost:8089/orders
+    @GetMapping("/orders")
+    public Flux<Order> all() {
+        return orderRepository.findAll();
+    }
+
+    @GetMapping("/orders/{id}")
+    public Mono<Order> one(@PathVariable Long id) {
+        return orderRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Order.class, id)));
+    }
+
+    @PostMapping("/orders")
+    Mono<Order> newOrder(@RequestBody Order order) {
+        order.setId(null);
+        order.setStatus(Status.IN_PROGRESS);
+        return orderRepository.save(order);
+    }
+
+    @DeleteMapping("/orders/{id}/cancel")
+    Mono<Order> cancel(@PathVariable Long id) {
+        return transition(id, Status.CANCELLED);
+    }
+
+    @PutMapping("/orders/{id}/complete")
+    Mono<Order> complete(@PathVariable Long id) {
+        return transition(id, Status.COMPLETED);
+    }
+
+    // UPDATE ... WHERE id = ? AND status = 'IN_PROGRESS'; si no se actualizo ninguna fila es 404 o 409
+    private Mono<Order> transition(Long id, Status target) {
+        return orderRepository.transition(id, Status.IN_PROGRESS.name(), target.name())
+                .flatMap(updated -> one(id).flatMap(order -> updated == 0
+                        ? Mono.error(new InvalidStateTransitionException(Order.class, id, order.getStatus(), target))
+                        : Mono.just(order)));
+    }
+}
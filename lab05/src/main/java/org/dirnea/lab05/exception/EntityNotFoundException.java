@@ -0,0 +1,10 @@
+package org.dirnea.lab05.exception;
+
+import org.springframework.util.StringUtils;
+
+public class EntityNotFoundException extends RuntimeException {
+
+    public EntityNotFoundException(Class<?> clazz, Long id) {
+        super(StringUtils.capitalize(clazz.getSimpleName()) + " was not found for parameters {id=" + id + "}");
+    }
+}
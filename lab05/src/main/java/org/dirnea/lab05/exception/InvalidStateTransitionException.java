@@ -0,0 +1,11 @@
+package org.dirnea.lab05.exception;
+
+import org.springframework.util.StringUtils;
+
+public class InvalidStateTransitionException extends RuntimeException {
+
+    public InvalidStateTransitionException(Class<?> clazz, Long id, Enum<?> current, Enum<?> target) {
+        super(StringUtils.capitalize(clazz.getSimpleName()) + " " + id + " is " + current +
+                " and cannot move to " + target);
+    }
+}
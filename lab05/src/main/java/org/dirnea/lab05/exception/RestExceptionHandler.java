@@ -0,0 +1,71 @@
+package org.dirnea.lab05.exception;
+
+import org.dirnea.lab05.apierror.ApiError;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    /**
+     * Handles EntityNotFoundException. Emitted by the controllers when a Mono completes empty.
+     *
+     * @param ex the EntityNotFoundException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(EntityNotFoundException.class)
+    protected ResponseEntity<ApiError> handleEntityNotFound(EntityNotFoundException ex) {
+        ApiError apiError = new ApiError(NOT_FOUND);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles InvalidStateTransitionException. Thrown when an entity is not in a state that allows the requested transition.
+     *
+     * @param ex the InvalidStateTransitionException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(InvalidStateTransitionException.class)
+    protected ResponseEntity<ApiError> handleInvalidStateTransition(InvalidStateTransitionException ex) {
+        ApiError apiError = new ApiError(CONFLICT);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles ServerWebInputException. Malformed JSON body or a path variable of the wrong type.
+     *
+     * @param ex the ServerWebInputException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    protected ResponseEntity<ApiError> handleServerWebInput(ServerWebInputException ex) {
+        return buildResponseEntity(new ApiError(BAD_REQUEST, "Malformed request", ex));
+    }
+
+    /**
+     * Handle DataIntegrityViolationException, inspects the cause for different DB causes.
+     *
+     * @param ex the DataIntegrityViolationException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    protected ResponseEntity<ApiError> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        return buildResponseEntity(new ApiError(CONFLICT, "Database error", ex.getMostSpecificCause()));
+    }
+
+    private ResponseEntity<ApiError> buildResponseEntity(ApiError apiError) {
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+}
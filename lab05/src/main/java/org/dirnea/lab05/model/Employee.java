@@ -0,0 +1,27 @@
+package org.dirnea.lab05.model;
+
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+
+// Sin JPA: Spring Data R2DBC mapea la fila a la clase, no hay contexto de persistencia ni lazy loading
+@Data
+public class Employee {
+
+    @Id
+    private Long id;
+    private String name;
+    private String role;
+
+    //{"nombre": "Luis Perez", "cargo": "student"} ---> mismo json que lab04
+    @JsonCreator
+    public Employee(@JsonProperty("nombre") String name, @JsonProperty("cargo") String role) {
+        this.name = name;
+        this.role = role;
+    }
+
+    Employee(){}
+
+}
@@ -0,0 +1,24 @@
+package org.dirnea.lab05.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Table("CUSTOMER_ORDER")
+public class Order {
+
+  @Id
+  private Long id;
+
+  private String description;
+  private Status status;
+
+  Order() {}
+
+  public Order(String description, Status status) {
+
+    this.description = description;
+    this.status = status;
+  }
+}
@@ -0,0 +1,8 @@
+package org.dirnea.lab05.model;
+
+public enum Status {
+
+  IN_PROGRESS,
+  COMPLETED,
+  CANCELLED;
+}
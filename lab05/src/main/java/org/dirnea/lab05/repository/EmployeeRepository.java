@@ -0,0 +1,7 @@
+package org.dirnea.lab05.repository;
+
+import org.dirnea.lab05.model.Employee;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface EmployeeRepository extends ReactiveCrudRepository<Employee, Long> {
+}
@@ -0,0 +1,16 @@
+package org.dirnea.lab05.repository;
+
+import org.dirnea.lab05.model.Order;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface OrderRepository extends ReactiveCrudRepository<Order, Long> {
+
+    // UPDATE condicional, igual que en lab04: 0 filas si la orden no existe o ya no esta en 'expected'
+    @Modifying
+    @Query("UPDATE customer_order SET status = :target WHERE id = :id AND status = :expected")
+    Mono<Integer> transition(@Param("id") Long id, @Param("expected") String expected, @Param("target") String target);
+}
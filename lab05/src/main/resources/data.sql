@@ -0,0 +1,7 @@
+INSERT INTO employee (name, role) VALUES ('Manuel Vega', 'Instructor');
+INSERT INTO employee (name, role) VALUES ('Juan Pueblo', 'Student');
+INSERT INTO employee (name, role) VALUES ('Peter Love', 'Student');
+INSERT INTO employee (name, role) VALUES ('Armando Meza', 'Student');
+
+INSERT INTO customer_order (description, status) VALUES ('MacBook Pro', 'COMPLETED');
+INSERT INTO customer_order (description, status) VALUES ('iPhone', 'IN_PROGRESS');
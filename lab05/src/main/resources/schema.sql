@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS employee (
+    id   BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255),
+    role VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS customer_order (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    description VARCHAR(255),
+    status      VARCHAR(32)
+);
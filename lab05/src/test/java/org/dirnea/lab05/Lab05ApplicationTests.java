@@ -0,0 +1,13 @@
+package org.dirnea.lab05;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class Lab05ApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
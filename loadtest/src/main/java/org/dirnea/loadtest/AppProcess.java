@@ -0,0 +1,106 @@
+package org.dirnea.loadtest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One lab application running in its own JVM on a free local port, started from its
+ * executable war. Its output goes to {@code <name>.log} in the log directory.
+ */
+final class AppProcess implements AutoCloseable {
+
+    private final String name;
+    private final Process process;
+    private final URI baseUri;
+    private final Path log;
+
+    private AppProcess(String name, Process process, URI baseUri, Path log) {
+        this.name = name;
+        this.process = process;
+        this.baseUri = baseUri;
+        this.log = log;
+    }
+
+    static AppProcess start(Scenario.App app, Path logDirectory, HttpClient client, Duration timeout)
+            throws IOException, InterruptedException {
+        Path war = Paths.get(app.war).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(war)) {
+            throw new IllegalStateException(war + " not found, build " + app.name + " with mvn package first");
+        }
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(app.jvmArgs);
+        command.add("-jar");
+        command.add(war.toString());
+        command.add("--server.port=" + port);
+        command.addAll(app.args);
+
+        Files.createDirectories(logDirectory);
+        Path log = logDirectory.resolve(app.name + ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        AppProcess started = new AppProcess(app.name, process, URI.create("http://localhost:" + port), log);
+        try {
+            started.awaitReady(client, app.readyPath, timeout);
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            started.close();
+            throw ex;
+        }
+        return started;
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    private void awaitReady(HttpClient client, String readyPath, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(readyPath))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + ", see " + log);
+            }
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (ConnectException ex) {
+                Thread.sleep(250);
+            }
+        }
+        throw new IllegalStateException(name + " did not answer on " + baseUri + " within " + timeout + ", see " + log);
+    }
+
+    // Puede chocar con otro proceso que tome el puerto entre el cierre y el arranque; es poco probable
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(20, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+}
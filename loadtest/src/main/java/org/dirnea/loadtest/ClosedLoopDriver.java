@@ -0,0 +1,100 @@
+package org.dirnea.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a fixed number of requests in flight: every completed request immediately sends
+ * the next one drawn from the {@link Workload}. Latencies of the measured window go to an
+ * HdrHistogram per operation; the warm-up window is discarded.
+ * <p>
+ * A closed loop never sends more than {@code concurrency} requests at once, so when the
+ * server slows down the offered load drops with it. The latencies are therefore a lower
+ * bound of what an open-loop client would see.
+ */
+final class ClosedLoopDriver {
+
+    private final HttpClient client;
+
+    ClosedLoopDriver(HttpClient client) {
+        this.client = client;
+    }
+
+    RunResult run(Workload workload, int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        Run run = new Run(workload, concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            run.send();
+        }
+        Thread.sleep(warmup.toMillis());
+        run.stats.values().forEach(OperationStats::reset);
+        run.measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        run.measuring = false;
+        long elapsed = System.nanoTime() - start;
+        List<OperationStats.Result> results = new ArrayList<>();
+        run.stats.values().forEach(stats -> results.add(stats.result(elapsed)));
+        run.running = false;
+        if (!run.finished.await(30, TimeUnit.SECONDS)) {
+            System.err.printf("%d requests still in flight after the run ended%n", run.finished.getCount());
+        }
+        return new RunResult(concurrency, results, elapsed);
+    }
+
+    private final class Run {
+        private final Workload workload;
+        private final ConcurrentMap<String, OperationStats> stats = new ConcurrentHashMap<>();
+        private final CountDownLatch finished;
+        private volatile boolean measuring;
+        private volatile boolean running = true;
+
+        private Run(Workload workload, int concurrency) {
+            this.workload = workload;
+            this.finished = new CountDownLatch(concurrency);
+        }
+
+        private void send() {
+            Workload.Call call;
+            try {
+                call = workload.next();
+            } catch (RuntimeException ex) {
+                System.err.println("Virtual user stopped: " + ex.getMessage());
+                finished.countDown();
+                return;
+            }
+            OperationStats operation = stats.computeIfAbsent(call.operation, OperationStats::new);
+            long start = System.nanoTime();
+            CompletableFuture<? extends HttpResponse<?>> response = call.readBody
+                    ? client.sendAsync(call.request, HttpResponse.BodyHandlers.ofString())
+                    : client.sendAsync(call.request, HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((r, ex) -> {
+                long latency = System.nanoTime() - start;
+                if (measuring) {
+                    if (ex == null) {
+                        operation.record(latency, r.statusCode());
+                    } else {
+                        operation.fail();
+                    }
+                }
+                if (ex == null && call.readBody) {
+                    @SuppressWarnings("unchecked")
+                    HttpResponse<String> withBody = (HttpResponse<String>) r;
+                    workload.completed(call, withBody);
+                }
+                if (running) {
+                    send();
+                } else {
+                    finished.countDown();
+                }
+            });
+        }
+    }
+}
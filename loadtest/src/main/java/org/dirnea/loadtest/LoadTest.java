@@ -0,0 +1,87 @@
+package org.dirnea.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * End-to-end load test: boots every application of the scenario in turn, drives its
+ * request mix with {@link ClosedLoopDriver} and writes a JSON {@link Report}. Everything
+ * runs on the local machine, the wars must be built beforehand ({@code mvn package}).
+ * <pre>
+ * mvn -q compile exec:java                                       (scenarios/default.json)
+ * mvn -q compile exec:java -Dexec.args="mi-escenario.json target/informe.json"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final String DEFAULT_SCENARIO = "/scenarios/default.json";
+    private static final String DEFAULT_REPORT = "target/loadtest-report.json";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Scenario scenario;
+        if (args.length > 0) {
+            scenario = objectMapper.readValue(Paths.get(args[0]).toFile(), Scenario.class);
+        } else {
+            try (InputStream in = LoadTest.class.getResourceAsStream(DEFAULT_SCENARIO)) {
+                scenario = objectMapper.readValue(in, Scenario.class);
+            }
+        }
+        Path reportFile = Paths.get(args.length > 1 ? args[1] : DEFAULT_REPORT);
+        Path logDirectory = reportFile.toAbsolutePath().getParent().resolve("loadtest-logs");
+
+        Report report = new Report(scenario);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+            ClosedLoopDriver driver = new ClosedLoopDriver(client);
+            for (Scenario.App app : scenario.apps) {
+                System.out.printf("%s: starting %s%n", app.name, app.war);
+                try (AppProcess process = AppProcess.start(app, logDirectory, client,
+                        Duration.ofSeconds(scenario.startupTimeoutSeconds))) {
+                    MixWorkload workload = new MixWorkload(process.baseUri(), app.mix, objectMapper);
+                    RunResult result = driver.run(workload, scenario.concurrency,
+                            Duration.ofSeconds(scenario.warmupSeconds), Duration.ofSeconds(scenario.durationSeconds));
+                    report.add(app.name, result);
+                    print(app.name, result);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        report.write(reportFile);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+
+    private static void print(String app, RunResult result) {
+        System.out.printf("%-8s %-32s %9s %10s %9s %9s %9s %7s%n",
+                "app", "operation", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (OperationStats.Result operation : result.operations) {
+            print(app, operation);
+        }
+        print(app, result.total);
+        System.out.println();
+    }
+
+    private static void print(String app, OperationStats.Result result) {
+        System.out.printf("%-8s %-32s %9d %10.0f %9.2f %9.2f %9.2f %7d%n", app, result.name, result.requests(),
+                result.throughput(), result.percentileMillis(50), result.percentileMillis(99), result.maxMillis(),
+                result.errors());
+    }
+}
@@ -0,0 +1,109 @@
+package org.dirnea.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws the operations of a mix at random, in proportion to their weights, and keeps the
+ * ids captured from responses for the operations whose path needs one.
+ */
+final class MixWorkload implements Workload {
+
+    private static final int MAX_DRAWS = 16;
+
+    private final URI baseUri;
+    private final List<Operation> mix;
+    private final int[] cumulativeWeights;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, ConcurrentLinkedDeque<Long>> ids = new ConcurrentHashMap<>();
+
+    MixWorkload(URI baseUri, List<Operation> mix, ObjectMapper objectMapper) {
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix for " + baseUri);
+        }
+        this.baseUri = baseUri;
+        this.mix = mix;
+        this.objectMapper = objectMapper;
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            total += Math.max(0, mix.get(i).weight);
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("All weights are zero for " + baseUri);
+        }
+    }
+
+    @Override
+    public Call next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int draw = 0; draw < MAX_DRAWS; draw++) {
+            Operation operation = pick(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+            String pool = operation.placeholder();
+            if (pool == null) {
+                return call(operation, operation.path);
+            }
+            ConcurrentLinkedDeque<Long> available = ids.computeIfAbsent(pool, p -> new ConcurrentLinkedDeque<>());
+            Long id = operation.consume ? available.pollFirst() : available.peekLast();
+            if (id != null) {
+                return call(operation, operation.expand(id));
+            }
+            // todavia no hay ids capturados para esta operacion, se sortea otra
+        }
+        for (Operation operation : mix) {
+            if (operation.placeholder() == null) {
+                return call(operation, operation.path);
+            }
+        }
+        throw new IllegalStateException("Every operation of the mix needs a captured id and none was captured");
+    }
+
+    @Override
+    public void completed(Call call, HttpResponse<String> response) {
+        Operation operation = (Operation) call.attachment;
+        if (operation.capture == null || response.statusCode() >= 300 || response.body() == null) {
+            return;
+        }
+        try {
+            JsonNode id = objectMapper.readTree(response.body()).path("id");
+            if (id.canConvertToLong()) {
+                ids.computeIfAbsent(operation.capture, p -> new ConcurrentLinkedDeque<>()).addLast(id.asLong());
+            }
+        } catch (IOException ex) {
+            // respuesta sin JSON, no hay id que guardar
+        }
+    }
+
+    private Operation pick(int value) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return mix.get(i);
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private Call call(Operation operation, String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30));
+        if (operation.body != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(operation.method, HttpRequest.BodyPublishers.ofString(operation.body));
+        } else {
+            builder.method(operation.method, HttpRequest.BodyPublishers.noBody());
+        }
+        return new Call(operation.name(), builder.build(), operation.capture != null, operation);
+    }
+}
@@ -0,0 +1,101 @@
+package org.dirnea.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares execution modes of the same endpoint: the blocking servlet stack of lab04
+ * (a Tomcat thread per request) against the WebFlux + R2DBC stack of lab05. Both apps
+ * must already be running. Every mode goes through the same concurrency steps and the
+ * report gives p99 per step and the highest concurrency that stayed within the SLO.
+ * <pre>
+ * mvn -q compile exec:java -Dexec.mainClass=org.dirnea.loadtest.ModeComparison -Dexec.args="blocking=http://localhost:8088 reactive=http://localhost:8089 --path=/employees/1"
+ * </pre>
+ * Options: {@code --path}, {@code --concurrency=16,64,256,1024}, {@code --warmup=5} and
+ * {@code --duration=20} (seconds), {@code --slo-p99-ms=250}, {@code --max-error-rate=0.01}.
+ * <p>
+ * All requests come from one address and 4xx count as errors: run lab04 with
+ * {@code overload.enabled=false}, or its per-client rate limit answers 429.
+ */
+public final class ModeComparison {
+
+    private ModeComparison() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, URI> modes = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected mode=url or --option=value: " + arg);
+            }
+            if (arg.startsWith("--")) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else {
+                modes.put(arg.substring(0, eq), URI.create(arg.substring(eq + 1)));
+            }
+        }
+        if (modes.isEmpty()) {
+            throw new IllegalArgumentException("No modes given, e.g. blocking=http://localhost:8088 reactive=http://localhost:8089");
+        }
+        String path = options.getOrDefault("path", "/employees");
+        List<Integer> steps = new ArrayList<>();
+        for (String step : options.getOrDefault("concurrency", "16,64,256,1024").split(",")) {
+            steps.add(Integer.parseInt(step.trim()));
+        }
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "20")));
+        double sloP99 = Double.parseDouble(options.getOrDefault("slo-p99-ms", "250"));
+        double maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "0.01"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+            ClosedLoopDriver driver = new ClosedLoopDriver(client);
+
+            System.out.printf("%-10s %11s %10s %9s %9s %9s %8s%n",
+                    "mode", "concurrency", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+            Map<String, Integer> maxConcurrency = new LinkedHashMap<>();
+            for (Map.Entry<String, URI> mode : modes.entrySet()) {
+                HttpRequest request = HttpRequest.newBuilder(mode.getValue().resolve(path))
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build();
+                Workload.Call call = new Workload.Call("GET " + path, request, false, null);
+                Workload workload = () -> call;
+                maxConcurrency.put(mode.getKey(), 0);
+                for (int concurrency : steps) {
+                    OperationStats.Result result = driver.run(workload, concurrency, warmup, duration).total;
+                    // aqui cualquier respuesta 4xx tambien es un error
+                    long errors = result.errors() + result.status(4);
+                    System.out.printf("%-10s %11d %10.0f %9.2f %9.2f %9.2f %8d%n", mode.getKey(), concurrency,
+                            result.throughput(), result.percentileMillis(50), result.percentileMillis(99),
+                            result.maxMillis(), errors);
+                    double errorRate = result.requests() == 0 ? 1.0 : errors / (double) result.requests();
+                    if (errorRate <= maxErrorRate && result.percentileMillis(99) <= sloP99) {
+                        maxConcurrency.merge(mode.getKey(), concurrency, Math::max);
+                    }
+                }
+            }
+            System.out.println();
+            maxConcurrency.forEach((mode, concurrency) -> System.out.printf(
+                    "%-10s max concurrency with p99 <= %.0f ms and errors <= %.1f%%: %s%n", mode, sloP99,
+                    maxErrorRate * 100, concurrency == 0 ? "none" : concurrency));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.dirnea.loadtest;
+
+/**
+ * One kind of request in a mix, e.g. {@code POST /employees} with weight 10.
+ * <p>
+ * The path may contain a placeholder such as {@code {employee}}, filled with an id that
+ * an operation with {@code "capture": "employee"} read from one of its responses. With
+ * {@code "consume": true} the id is used only once, for deletes and one-way transitions.
+ */
+public final class Operation {
+
+    public String name;
+    public String method = "GET";
+    public String path;
+    public String body;
+    public int weight = 1;
+    public String capture;
+    public boolean consume;
+
+    public String name() {
+        return name != null ? name : method + " " + path;
+    }
+
+    /**
+     * Name of the id pool used by the path, or {@code null} when it has no placeholder.
+     */
+    String placeholder() {
+        int start = path.indexOf('{');
+        int end = path.indexOf('}', start + 1);
+        return start < 0 || end < 0 ? null : path.substring(start + 1, end);
+    }
+
+    String expand(long id) {
+        int start = path.indexOf('{');
+        int end = path.indexOf('}', start + 1);
+        return path.substring(0, start) + id + path.substring(end + 1);
+    }
+}
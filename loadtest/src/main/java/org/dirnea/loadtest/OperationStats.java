@@ -0,0 +1,120 @@
+package org.dirnea.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one operation while a run is measured. Written from the HTTP
+ * client threads; {@link #result} takes the interval since the last reset.
+ */
+final class OperationStats {
+
+    private final String name;
+    private final Recorder recorder = new Recorder(3);
+    // indice = status / 100, de 1xx a 5xx
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    private final LongAdder failures = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    void record(long latencyNanos, int status) {
+        recorder.recordValue(latencyNanos);
+        statusClasses[Math.min(Math.max(status / 100, 0), 5)].increment();
+    }
+
+    void fail() {
+        failures.increment();
+    }
+
+    void reset() {
+        recorder.reset();
+        for (LongAdder counter : statusClasses) {
+            counter.reset();
+        }
+        failures.reset();
+    }
+
+    Result result(long elapsedNanos) {
+        long[] counts = new long[statusClasses.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = statusClasses[i].sum();
+        }
+        return new Result(name, recorder.getIntervalHistogram(), counts, failures.sum(), elapsedNanos);
+    }
+
+    /**
+     * Snapshot of an operation, or of several merged. Latencies in nanoseconds, of every
+     * request that got a response; failures are requests without one.
+     */
+    static final class Result {
+        final String name;
+        final Histogram latencies;
+        final long[] statusClasses;
+        final long failures;
+        final long elapsedNanos;
+
+        Result(String name, Histogram latencies, long[] statusClasses, long failures, long elapsedNanos) {
+            this.name = name;
+            this.latencies = latencies;
+            this.statusClasses = statusClasses;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        static Result merge(String name, Iterable<Result> results, long elapsedNanos) {
+            Histogram latencies = new Histogram(3);
+            long[] statusClasses = new long[6];
+            long failures = 0;
+            for (Result result : results) {
+                latencies.add(result.latencies);
+                for (int i = 0; i < statusClasses.length; i++) {
+                    statusClasses[i] += result.statusClasses[i];
+                }
+                failures += result.failures;
+            }
+            return new Result(name, latencies, statusClasses, failures, elapsedNanos);
+        }
+
+        long requests() {
+            long requests = failures;
+            for (long count : statusClasses) {
+                requests += count;
+            }
+            return requests;
+        }
+
+        long status(int statusClass) {
+            return statusClasses[statusClass];
+        }
+
+        /** Requests without a response plus 5xx responses. */
+        long errors() {
+            return failures + statusClasses[5];
+        }
+
+        double errorRate() {
+            long requests = requests();
+            return requests == 0 ? 1.0 : errors() / (double) requests;
+        }
+
+        double throughput() {
+            return requests() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return latencies.getMaxValue() / 1_000_000.0;
+        }
+    }
+}
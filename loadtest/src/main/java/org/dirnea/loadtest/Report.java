@@ -0,0 +1,87 @@
+package org.dirnea.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON report of a load test. Keys keep a fixed order and latencies are in milliseconds,
+ * so two reports can be diffed line by line between releases.
+ */
+final class Report {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Object> root = new LinkedHashMap<>();
+    private final List<Map<String, Object>> apps = new ArrayList<>();
+
+    Report(Scenario scenario) {
+        root.put("createdAt", Instant.now().toString());
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        environment.put("cores", Runtime.getRuntime().availableProcessors());
+        root.put("environment", environment);
+        Map<String, Object> load = new LinkedHashMap<>();
+        load.put("concurrency", scenario.concurrency);
+        load.put("warmupSeconds", scenario.warmupSeconds);
+        load.put("durationSeconds", scenario.durationSeconds);
+        root.put("load", load);
+        root.put("apps", apps);
+    }
+
+    void add(String app, RunResult result) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", app);
+        entry.put("total", stats(result.total));
+        List<Map<String, Object>> operations = new ArrayList<>();
+        result.operations.stream()
+                .sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(operation -> operations.add(stats(operation)));
+        entry.put("operations", operations);
+        apps.add(entry);
+    }
+
+    void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), root);
+    }
+
+    private static Map<String, Object> stats(OperationStats.Result result) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", result.name);
+        stats.put("requests", result.requests());
+        stats.put("throughput", round(result.throughput()));
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (int statusClass = 1; statusClass <= 5; statusClass++) {
+            if (result.status(statusClass) > 0) {
+                status.put(statusClass + "xx", result.status(statusClass));
+            }
+        }
+        stats.put("status", status);
+        stats.put("failures", result.failures);
+        stats.put("errorRate", round(result.errorRate()));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + (percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile)),
+                    round(result.percentileMillis(percentile)));
+        }
+        latency.put("max", round(result.maxMillis()));
+        stats.put("latencyMs", latency);
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,20 @@
+package org.dirnea.loadtest;
+
+import java.util.List;
+
+/**
+ * Outcome of one measured run: the concurrency it ran at, every operation on its own and
+ * all of them merged.
+ */
+final class RunResult {
+
+    final int concurrency;
+    final List<OperationStats.Result> operations;
+    final OperationStats.Result total;
+
+    RunResult(int concurrency, List<OperationStats.Result> operations, long elapsedNanos) {
+        this.concurrency = concurrency;
+        this.operations = operations;
+        this.total = OperationStats.Result.merge("total", operations, elapsedNanos);
+    }
+}
@@ -0,0 +1,28 @@
+package org.dirnea.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load-test description read from JSON: the load shape shared by every application and,
+ * per application, the war to boot and the request mix to drive against it.
+ */
+public final class Scenario {
+
+    public int concurrency = 64;
+    public long warmupSeconds = 10;
+    public long durationSeconds = 30;
+    public long startupTimeoutSeconds = 120;
+    public List<App> apps = new ArrayList<>();
+
+    public static final class App {
+        public String name;
+        /** Executable war or jar, relative to the working directory. */
+        public String war;
+        public List<String> jvmArgs = new ArrayList<>();
+        public List<String> args = new ArrayList<>();
+        /** Polled until it answers, with any status, before the load starts. */
+        public String readyPath = "/";
+        public List<Operation> mix = new ArrayList<>();
+    }
+}
@@ -0,0 +1,33 @@
+package org.dirnea.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Source of the requests sent by {@link ClosedLoopDriver}. Called concurrently from the
+ * HTTP client threads.
+ */
+interface Workload {
+
+    Call next();
+
+    /**
+     * Called with every response of a call that asked for its body.
+     */
+    default void completed(Call call, HttpResponse<String> response) {
+    }
+
+    final class Call {
+        final String operation;
+        final HttpRequest request;
+        final boolean readBody;
+        final Object attachment;
+
+        Call(String operation, HttpRequest request, boolean readBody, Object attachment) {
+            this.operation = operation;
+            this.request = request;
+            this.readBody = readBody;
+            this.attachment = attachment;
+        }
+    }
+}